@@ -0,0 +1,31 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gregpalacios.springtest.SpringbootTestApplication;
+
+/**
+ * Arranca la aplicación completa (H2 en memoria, puerto aleatorio) con el log
+ * de SQL apagado para que no distorsione las mediciones.
+ */
+final class Aplicacion {
+
+	private Aplicacion() {
+	}
+
+	static ConfigurableApplicationContext iniciar(String... propiedades) {
+		List<String> argumentos = new ArrayList<>(Arrays.asList("--server.port=0", "--spring.main.banner-mode=off",
+				"--logging.level.root=WARN", "--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF"));
+		for (String propiedad : propiedades) {
+			argumentos.add("--" + propiedad);
+		}
+		return new SpringApplicationBuilder(SpringbootTestApplication.class).run(argumentos.toArray(new String[0]));
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tiempo desde main hasta la primera respuesta de la API, en una JVM nueva
+ * por medición (sin JIT ni clases cargadas de arranques anteriores). El heap
+ * usado tras un GC completo se reporta como contador auxiliar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ArranqueBenchmark {
+
+	@Param({ "default", "prod" })
+	public String perfil;
+
+	private ConfigurableApplicationContext contexto;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Memoria {
+
+		public double heapMb;
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public String primeraPeticion(Memoria memoria) {
+		contexto = Aplicacion.iniciar("spring.profiles.active=" + perfil);
+		String cuenta = new RestTemplate().getForObject(
+				"http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/cuentas/1",
+				String.class);
+		memoria.heapMb = heapTrasGc();
+		return cuenta;
+	}
+
+	private static double heapTrasGc() {
+		MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		return memoria.getHeapMemoryUsage().getUsed() / (1024.0 * 1024.0);
+	}
+}
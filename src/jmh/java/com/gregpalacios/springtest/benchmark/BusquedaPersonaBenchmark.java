@@ -0,0 +1,98 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * Búsqueda por titular con y sin los índices de cuentas.persona*. "prefijoSql"
+ * es la alternativa a IndicePersonas: un LIKE 'prefijo%' sobre la columna
+ * normalizada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BusquedaPersonaBenchmark {
+
+	@Param({ "100000" })
+	public int cuentas;
+
+	@Param({ "true", "false" })
+	public boolean indices;
+
+	private ConfigurableApplicationContext contexto;
+
+	private CuentaService service;
+
+	private JdbcTemplate jdbc;
+
+	@Setup
+	public void setUp() {
+		contexto = Aplicacion.iniciar("cuentas.cache.habilitada=false");
+		service = contexto.getBean(CuentaService.class);
+		jdbc = contexto.getBean(JdbcTemplate.class);
+
+		List<Cuenta> nuevas = new ArrayList<>(10000);
+		for (int i = 0; i < cuentas; i++) {
+			nuevas.add(new Cuenta(null, "Persona Núñez " + i, new BigDecimal("100.00")));
+			if (nuevas.size() == 10000) {
+				service.saveAll(nuevas);
+				nuevas = new ArrayList<>(10000);
+			}
+		}
+		service.saveAll(nuevas);
+
+		if (!indices) {
+			jdbc.execute("DROP INDEX idx_cuentas_persona");
+			jdbc.execute("DROP INDEX idx_cuentas_persona_normalizada");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		contexto.close();
+	}
+
+	private String nombre() {
+		return "persona nunez " + ThreadLocalRandom.current().nextInt(cuentas);
+	}
+
+	@Benchmark
+	public List<Cuenta> porPersona() {
+		return service.findByPersona(nombre(), 0, 50);
+	}
+
+	@Benchmark
+	public List<Cuenta> prefijoMemoria() {
+		return service.buscarPorPrefijo(nombre(), 50);
+	}
+
+	@Benchmark
+	public List<Long> prefijoSql() {
+		return jdbc.queryForList("select id from cuentas where persona_normalizada like ? "
+				+ "order by persona_normalizada, id limit 50", Long.class, nombre() + "%");
+	}
+}
@@ -0,0 +1,107 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * Alta masiva de cuentas: saveAll (INSERT en lotes JDBC) frente a save una a
+ * una. "sentencias" cuenta las sentencias preparadas por Hibernate, que con
+ * lotes es una por lote y tabla. Para la carga completa: -p cantidad=1000000
+ * (la variante unaPorUna tarda varios minutos con ese tamaño).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class CargaCuentasBenchmark {
+
+	@Param({ "100000" })
+	public int cantidad;
+
+	@Param({ "50" })
+	public int tamanioLote;
+
+	private ConfigurableApplicationContext contexto;
+
+	private CuentaService service;
+
+	private Statistics estadisticas;
+
+	private List<Cuenta> cuentas;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Sentencias {
+
+		public long sentencias;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = Aplicacion.iniciar("spring.jpa.properties.hibernate.jdbc.batch_size=" + tamanioLote,
+				"spring.jpa.properties.hibernate.generate_statistics=true",
+				"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+				"cuentas.cache.habilitada=false");
+		service = contexto.getBean(CuentaService.class);
+		estadisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Setup(Level.Invocation)
+	public void prepararCuentas() {
+		cuentas = new ArrayList<>(cantidad);
+		for (int i = 0; i < cantidad; i++) {
+			cuentas.add(new Cuenta(null, "Carga " + i, new BigDecimal("100.00")));
+		}
+		estadisticas.clear();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<Cuenta> saveAll(Sentencias sentencias) {
+		List<Cuenta> creadas = service.saveAll(cuentas);
+		sentencias.sentencias += estadisticas.getPrepareStatementCount();
+		return creadas;
+	}
+
+	@Benchmark
+	public Cuenta unaPorUna(Sentencias sentencias) {
+		Cuenta ultima = null;
+		for (Cuenta cuenta : cuentas) {
+			ultima = service.save(cuenta);
+		}
+		sentencias.sentencias += estadisticas.getPrepareStatementCount();
+		return ultima;
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.Dinero;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CuentaBenchmark {
+
+	private final BigDecimal monto = new BigDecimal("10.50");
+
+	private final Dinero importe = Dinero.de(monto);
+
+	private final BigDecimal montoExcesivo = new BigDecimal("5000");
+
+	private Cuenta cuenta;
+
+	private Cuenta cuentaPequena;
+
+	private BigDecimal saldoBigDecimal;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		cuenta = new Cuenta(1L, "Andrés", new BigDecimal("1000.00"));
+		cuentaPequena = new Cuenta(2L, "Jhon", new BigDecimal("100.00"));
+		saldoBigDecimal = new BigDecimal("1000.00");
+	}
+
+	@Benchmark
+	public Cuenta debitoCreditoDinero() {
+		cuenta.debito(importe);
+		cuenta.credito(importe);
+		return cuenta;
+	}
+
+	// Referencia: la aritmética BigDecimal que usaba Cuenta antes de Dinero.
+	@Benchmark
+	public BigDecimal debitoCreditoBigDecimal() {
+		BigDecimal nuevoSaldo = saldoBigDecimal.subtract(monto);
+		if (nuevoSaldo.compareTo(BigDecimal.ZERO) < 0) {
+			throw new DineroInsuficienteException("Dinero insuficiente en la cuenta.");
+		}
+		saldoBigDecimal = nuevoSaldo.add(monto);
+		return saldoBigDecimal;
+	}
+
+	@Benchmark
+	public BigDecimal debitoCredito() {
+		cuenta.debito(monto);
+		cuenta.credito(monto);
+		return cuenta.getSaldo();
+	}
+
+	@Benchmark
+	public BigDecimal creditoDebito() {
+		cuenta.credito(monto);
+		cuenta.debito(monto);
+		return cuenta.getSaldo();
+	}
+
+	@Benchmark
+	public Object debitoSinFondos() {
+		try {
+			cuentaPequena.debito(montoExcesivo);
+			return cuentaPequena;
+		} catch (DineroInsuficienteException e) {
+			return e;
+		}
+	}
+
+}
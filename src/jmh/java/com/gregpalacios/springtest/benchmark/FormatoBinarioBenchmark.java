@@ -0,0 +1,105 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+/**
+ * Codificar y decodificar los lotes de cuentas y de transferencias en JSON,
+ * Smile y CBOR, con los mismos ObjectMapper que arman los convertidores de
+ * Spring MVC. El tamaño de cada carga se imprime al preparar el estado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatoBinarioBenchmark {
+
+	@Param({ "json", "smile", "cbor" })
+	public String formato;
+
+	@Param({ "1000" })
+	public int elementos;
+
+	private ObjectMapper mapper;
+
+	private JavaType tipoCuentas;
+
+	private JavaType tipoTransacciones;
+
+	private List<Cuenta> cuentas;
+
+	private List<TransaccionDto> transacciones;
+
+	private byte[] cuentasCodificadas;
+
+	private byte[] transaccionesCodificadas;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Jackson2ObjectMapperBuilder builder = "smile".equals(formato) ? Jackson2ObjectMapperBuilder.smile()
+				: "cbor".equals(formato) ? Jackson2ObjectMapperBuilder.cbor() : Jackson2ObjectMapperBuilder.json();
+		mapper = builder.build();
+		tipoCuentas = mapper.getTypeFactory().constructCollectionType(List.class, Cuenta.class);
+		tipoTransacciones = mapper.getTypeFactory().constructCollectionType(List.class, TransaccionDto.class);
+
+		cuentas = new ArrayList<>(elementos);
+		transacciones = new ArrayList<>(elementos);
+		for (int i = 0; i < elementos; i++) {
+			cuentas.add(new Cuenta((long) i + 1, "Cliente " + i, new BigDecimal(1000 + i).movePointLeft(2)));
+			TransaccionDto dto = new TransaccionDto();
+			dto.setCuentaOrigenId((long) i + 1);
+			dto.setCuentaDestinoId((long) i + 2);
+			dto.setBancoId(1L);
+			dto.setMonto(new BigDecimal(100 + i).movePointLeft(2));
+			transacciones.add(dto);
+		}
+		cuentasCodificadas = mapper.writeValueAsBytes(cuentas);
+		transaccionesCodificadas = mapper.writeValueAsBytes(transacciones);
+		System.out.printf("%n%s: cuentas %d bytes, transacciones %d bytes%n", formato, cuentasCodificadas.length,
+				transaccionesCodificadas.length);
+	}
+
+	@Benchmark
+	public byte[] codificarCuentas() throws Exception {
+		return mapper.writeValueAsBytes(cuentas);
+	}
+
+	@Benchmark
+	public List<Cuenta> decodificarCuentas() throws Exception {
+		return mapper.readValue(cuentasCodificadas, tipoCuentas);
+	}
+
+	@Benchmark
+	public byte[] codificarTransacciones() throws Exception {
+		return mapper.writeValueAsBytes(transacciones);
+	}
+
+	@Benchmark
+	public List<TransaccionDto> decodificarTransacciones() throws Exception {
+		return mapper.readValue(transaccionesCodificadas, tipoTransacciones);
+	}
+
+}
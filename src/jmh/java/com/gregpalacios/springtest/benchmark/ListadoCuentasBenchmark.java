@@ -0,0 +1,77 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * Listado completo como entidades administradas (findAll) o como DTO (una sola
+ * página de findPagina).
+ * Con -prof gc se ve la memoria por operación: cada entidad carga además su
+ * copia para dirty checking y su entrada en el contexto de persistencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ListadoCuentasBenchmark {
+
+	@Param({ "100000" })
+	public int cuentas;
+
+	private ConfigurableApplicationContext contexto;
+
+	private CuentaService service;
+
+	@Setup
+	public void setUp() {
+		contexto = Aplicacion.iniciar("cuentas.cache.habilitada=false");
+		service = contexto.getBean(CuentaService.class);
+
+		List<Cuenta> nuevas = new ArrayList<>(10000);
+		for (int i = 0; i < cuentas; i++) {
+			nuevas.add(new Cuenta(null, "Listado " + i, new BigDecimal("100.00")));
+			if (nuevas.size() == 10000) {
+				service.saveAll(nuevas);
+				nuevas = new ArrayList<>(10000);
+			}
+		}
+		service.saveAll(nuevas);
+	}
+
+	@TearDown
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<Cuenta> entidades() {
+		return service.findAll();
+	}
+
+	@Benchmark
+	public List<CuentaDto> dtos() {
+		return service.findPagina(null, cuentas);
+	}
+}
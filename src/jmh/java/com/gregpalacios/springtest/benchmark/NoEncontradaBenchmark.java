@@ -0,0 +1,77 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
+import com.gregpalacios.springtest.models.Cuenta;
+
+/**
+ * Costo de responder "no existe" según cómo se propaga. La búsqueda se hace a
+ * "profundidad" marcos de distancia del llamador, que es aproximadamente la
+ * pila de Tomcat + Spring + proxies en una petición real.
+ * <p>
+ * antes: Optional.orElseThrow(null) lanza NullPointerException con traza.
+ * sinTraza: RecursoNoEncontradoException (findById).
+ * optional: Optional.empty() hasta el controlador (buscar).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NoEncontradaBenchmark {
+
+	@Param({ "100" })
+	public int profundidad;
+
+	private final Optional<Cuenta> vacia = Optional.empty();
+
+	@Benchmark
+	public Object antes() {
+		try {
+			return conNpe(profundidad);
+		} catch (NullPointerException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object sinTraza() {
+		try {
+			return conExcepcion(profundidad);
+		} catch (RecursoNoEncontradoException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object optional() {
+		return conOptional(profundidad).orElse(null);
+	}
+
+	private Cuenta conNpe(int nivel) {
+		return nivel == 0 ? vacia.orElseThrow(null) : conNpe(nivel - 1);
+	}
+
+	private Cuenta conExcepcion(int nivel) {
+		return nivel == 0 ? vacia.orElseThrow(() -> new RecursoNoEncontradoException("Cuenta inexistente."))
+				: conExcepcion(nivel - 1);
+	}
+
+	private Optional<Cuenta> conOptional(int nivel) {
+		return nivel == 0 ? vacia : conOptional(nivel - 1);
+	}
+}
@@ -0,0 +1,98 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * La misma carga HTTP contra la pila MVC (Tomcat) y la reactiva (Netty). El
+ * servidor se limita a dos procesadores para que la diferencia venga del
+ * modelo de hilos y no de que el cliente y el servidor se repartan la máquina.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = "-XX:ActiveProcessorCount=2")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class PilaWebBenchmark {
+
+	@Param({ "servlet", "reactivo" })
+	public String pila;
+
+	@Param({ "100" })
+	public int cuentas;
+
+	private ConfigurableApplicationContext contexto;
+
+	private RestTemplate cliente;
+
+	private String base;
+
+	private List<Long> ids;
+
+	@Setup
+	public void setUp() {
+		contexto = "reactivo".equals(pila) ? Aplicacion.iniciar("spring.profiles.active=reactivo")
+				: Aplicacion.iniciar();
+		base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/cuentas";
+		cliente = new RestTemplate();
+
+		List<Cuenta> nuevas = new ArrayList<>(cuentas);
+		for (int i = 0; i < cuentas; i++) {
+			nuevas.add(new Cuenta(null, "Carga " + i, new BigDecimal("1000000.00")));
+		}
+		ids = new ArrayList<>();
+		for (Cuenta cuenta : contexto.getBean(CuentaService.class).saveAll(nuevas)) {
+			ids.add(cuenta.getId());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Cuenta detalle() {
+		Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+		return cliente.getForObject(base + "/" + id, Cuenta.class);
+	}
+
+	@Benchmark
+	public String transferir() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int origen = random.nextInt(ids.size());
+		int destino = (origen + 1 + random.nextInt(ids.size() - 1)) % ids.size();
+
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(ids.get(origen));
+		dto.setCuentaDestinoId(ids.get(destino));
+		dto.setBancoId(1L);
+		dto.setMonto(new BigDecimal("1.00"));
+		return cliente.postForObject(base + "/transferir", dto, String.class);
+	}
+}
@@ -0,0 +1,77 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.gregpalacios.springtest.models.RespuestaTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+/**
+ * Armar y serializar la respuesta de una transferencia: el HashMap de antes
+ * (con LocalDate.now().toString() en cada llamada) contra
+ * RespuestaTransferencia, con y sin Blackbird.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RespuestaTransferenciaBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean blackbird;
+
+	private ObjectMapper objectMapper;
+
+	private TransaccionDto dto;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		if (blackbird) {
+			objectMapper.registerModule(new BlackbirdModule());
+		}
+
+		dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100.00"));
+		dto.setBancoId(1L);
+	}
+
+	@Benchmark
+	public byte[] mapa() throws Exception {
+		Map<String, Object> response = new HashMap<>();
+		response.put("date", LocalDate.now().toString());
+		response.put("status", "OK");
+		response.put("mensaje", "Transferencia realizada con éxito");
+		response.put("transaccion", dto);
+		return objectMapper.writeValueAsBytes(response);
+	}
+
+	@Benchmark
+	public byte[] tipada() throws Exception {
+		return objectMapper.writeValueAsBytes(RespuestaTransferencia.ok(dto));
+	}
+
+}
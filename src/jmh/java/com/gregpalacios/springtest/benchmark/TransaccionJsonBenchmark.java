@@ -0,0 +1,86 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gregpalacios.springtest.controllers.CuentaController;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * Ida y vuelta JSON de POST /api/cuentas/transferir a través de la capa MVC,
+ * con el servicio simulado para aislar el coste de (de)serialización.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransaccionJsonBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private MockMvc mvc;
+
+	private TransaccionDto dto;
+
+	private byte[] json;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		objectMapper = new ObjectMapper();
+
+		CuentaController controller = new CuentaController();
+		ReflectionTestUtils.setField(controller, "cuentaService", Mockito.mock(CuentaService.class));
+		ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+		mvc = MockMvcBuilders.standaloneSetup(controller)
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper)).build();
+
+		dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100.00"));
+		dto.setBancoId(1L);
+		json = objectMapper.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	public byte[] transferirMvc() throws Exception {
+		return mvc
+				.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+						.content(json))
+				.andReturn().getResponse().getContentAsByteArray();
+	}
+
+	@Benchmark
+	public byte[] serializarDto() throws Exception {
+		return objectMapper.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	public TransaccionDto deserializarDto() throws Exception {
+		return objectMapper.readValue(json, TransaccionDto.class);
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * CuentaServiceImpl.transferir contra H2 en memoria, un solo hilo. Las dos
+ * cuentas se alternan como origen y destino para que el saldo no se agote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransferenciaBenchmark {
+
+	@Param({ "OPTIMISTA", "PESIMISTA", "ATOMICA" })
+	public String modo;
+
+	@Param({ "100" })
+	public int tamanioLote;
+
+	private final BigDecimal monto = new BigDecimal("1.00");
+
+	private ConfigurableApplicationContext contexto;
+
+	private CuentaService service;
+
+	private Long cuentaA;
+
+	private Long cuentaB;
+
+	private List<TransaccionDto> lote;
+
+	private boolean ida;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = Aplicacion.iniciar("cuentas.transferir.modo=" + modo, "cuentas.cache.habilitada=false");
+		service = contexto.getBean(CuentaService.class);
+		CuentaRepository cuentaRepository = contexto.getBean(CuentaRepository.class);
+		cuentaA = cuentaRepository.save(new Cuenta(null, "Benchmark A", new BigDecimal("1000000.00"))).getId();
+		cuentaB = cuentaRepository.save(new Cuenta(null, "Benchmark B", new BigDecimal("1000000.00"))).getId();
+
+		lote = new ArrayList<>(tamanioLote);
+		for (int i = 0; i < tamanioLote; i++) {
+			TransaccionDto dto = new TransaccionDto();
+			dto.setCuentaOrigenId(i % 2 == 0 ? cuentaA : cuentaB);
+			dto.setCuentaDestinoId(i % 2 == 0 ? cuentaB : cuentaA);
+			dto.setMonto(monto);
+			dto.setBancoId(1L);
+			lote.add(dto);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public void transferir() {
+		ida = !ida;
+		if (ida) {
+			service.transferir(cuentaA, cuentaB, monto, 1L);
+		} else {
+			service.transferir(cuentaB, cuentaA, monto, 1L);
+		}
+	}
+
+	@Benchmark
+	public List<ResultadoTransferencia> transferirLote() {
+		return service.transferirLote(lote);
+	}
+
+}
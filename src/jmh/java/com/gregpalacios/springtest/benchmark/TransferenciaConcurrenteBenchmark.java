@@ -0,0 +1,94 @@
+package com.gregpalacios.springtest.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+
+/**
+ * Transferencias concurrentes entre un conjunto pequeño de cuentas
+ * "calientes". Se cambia el número de hilos con -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransferenciaConcurrenteBenchmark {
+
+	@Param({ "OPTIMISTA", "PESIMISTA", "ATOMICA" })
+	public String modo;
+
+	@Param({ "2", "16" })
+	public int cuentasCalientes;
+
+	private final BigDecimal monto = new BigDecimal("1.00");
+
+	private ConfigurableApplicationContext contexto;
+
+	private CuentaService service;
+
+	private List<Long> ids;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Fallos {
+
+		public long conflictos;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		contexto = Aplicacion.iniciar("cuentas.transferir.modo=" + modo, "cuentas.cache.habilitada=false",
+				"spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=10000");
+		service = contexto.getBean(CuentaService.class);
+		CuentaRepository cuentaRepository = contexto.getBean(CuentaRepository.class);
+		ids = new ArrayList<>(cuentasCalientes);
+		for (int i = 0; i < cuentasCalientes; i++) {
+			ids.add(cuentaRepository.save(new Cuenta(null, "Caliente " + i, new BigDecimal("100000000.00"))).getId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public void transferir(Fallos fallos) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Long origen = ids.get(random.nextInt(ids.size()));
+		Long destino = ids.get(random.nextInt(ids.size()));
+		try {
+			service.transferir(origen, destino, monto, 1L);
+		} catch (ConcurrencyFailureException e) {
+			fallos.conflictos++;
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.gregpalacios.springtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.services.impl.CacheCuentas;
+
+/**
+ * Estadísticas de la caché de cuentas y vaciado manual. Como el vaciado no
+ * tiene autenticación, sólo se publica por HTTP con el perfil
+ * {@code gestion}, en el puerto de gestión.
+ */
+@Component
+@Endpoint(id = "cachecuentas")
+public class CacheCuentasEndpoint {
+
+	private final CacheCuentas cacheCuentas;
+
+	public CacheCuentasEndpoint(CacheCuentas cacheCuentas) {
+		this.cacheCuentas = cacheCuentas;
+	}
+
+	@ReadOperation
+	public Map<String, Object> estadisticas() {
+		Map<String, Object> estadisticas = new LinkedHashMap<>();
+		estadisticas.put("habilitada", cacheCuentas.isHabilitada());
+		estadisticas.put("tamanio", cacheCuentas.tamanio());
+		estadisticas.put("tamanioMaximo", cacheCuentas.tamanioMaximo());
+		estadisticas.put("aciertos", cacheCuentas.aciertos());
+		estadisticas.put("fallos", cacheCuentas.fallos());
+		estadisticas.put("desalojos", cacheCuentas.desalojos());
+		return estadisticas;
+	}
+
+	@DeleteOperation
+	public void limpiar() {
+		cacheCuentas.limpiar();
+	}
+
+}
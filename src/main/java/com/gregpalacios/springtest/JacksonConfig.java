@@ -0,0 +1,47 @@
+package com.gregpalacios.springtest;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Blackbird reemplaza la reflexión con accesores generados (LambdaMetafactory)
+ * al leer y escribir las propiedades de Cuenta, TransaccionDto y demás beans.
+ * Como bean Module lo recoge el ObjectMapper de Spring Boot (WebFlux, NDJSON);
+ * los convertidores de Spring MVC arman su propio ObjectMapper por
+ * {@code @EnableWebMvc} y se registra en ellos aparte.
+ */
+@Configuration
+public class JacksonConfig {
+
+	@Bean
+	public Module blackbirdModule() {
+		return new BlackbirdModule();
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	public WebMvcConfigurer blackbirdConvertidores(Module blackbirdModule) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+				for (HttpMessageConverter<?> converter : converters) {
+					if (converter instanceof AbstractJackson2HttpMessageConverter) {
+						((AbstractJackson2HttpMessageConverter) converter).getObjectMapper()
+								.registerModule(blackbirdModule);
+					}
+				}
+			}
+		};
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.gregpalacios.springtest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.ModoTransferencia;
+
+/**
+ * Consulta y cambia la estrategia de transferencia en caliente. No tiene
+ * autenticación: sólo se publica por HTTP con el perfil {@code gestion}, en
+ * el puerto de gestión.
+ */
+@Component
+@Endpoint(id = "modotransferencia")
+public class ModoTransferenciaEndpoint {
+
+	private final CuentaService cuentaService;
+
+	public ModoTransferenciaEndpoint(CuentaService cuentaService) {
+		this.cuentaService = cuentaService;
+	}
+
+	@ReadOperation
+	public Map<String, Object> modo() {
+		return Collections.singletonMap("modo", cuentaService.getModoTransferencia());
+	}
+
+	@WriteOperation
+	public Map<String, Object> cambiar(ModoTransferencia modo) {
+		cuentaService.setModoTransferencia(modo);
+		return modo();
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.gregpalacios.springtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Perfil replica: las transacciones readOnly leen de la réplica y todo lo demás
+ * (escrituras y código sin transacción) va a la primaria. Cada lado tiene su
+ * propio pool Hikari (spring.datasource.hikari.* y
+ * cuentas.replica.datasource.hikari.*), así las lecturas no compiten con las
+ * escrituras por conexiones.
+ * <p>
+ * La réplica puede ir por detrás de la primaria: lo que se lee justo después de
+ * escribir debe leerse dentro de una transacción de escritura.
+ */
+@Configuration
+@Profile("replica")
+public class ReplicaConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primariaDataSource(DataSourceProperties propiedades) {
+		return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@ConfigurationProperties("cuentas.replica.datasource.hikari")
+	public HikariDataSource replicaDataSource(@Value("${cuentas.replica.datasource.url}") String url,
+			@Value("${cuentas.replica.datasource.username:sa}") String usuario,
+			@Value("${cuentas.replica.datasource.password:}") String clave) {
+		return DataSourceBuilder.create().type(HikariDataSource.class).url(url).username(usuario).password(clave)
+				.build();
+	}
+
+	/**
+	 * La conexión real se pide con la primera sentencia y no al empezar la
+	 * transacción: en ese momento Spring todavía no marcó la transacción como
+	 * readOnly y siempre se elegiría la primaria.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primariaDataSource") DataSource primaria,
+			@Qualifier("replicaDataSource") DataSource replica) {
+		Map<Object, Object> destinos = new HashMap<>();
+		destinos.put(Destino.PRIMARIA, primaria);
+		destinos.put(Destino.REPLICA, replica);
+
+		EnrutadorDataSource enrutador = new EnrutadorDataSource();
+		enrutador.setTargetDataSources(destinos);
+		enrutador.setDefaultTargetDataSource(primaria);
+		enrutador.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(enrutador);
+	}
+
+	enum Destino {
+		PRIMARIA, REPLICA
+	}
+
+	static class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+		@Override
+		protected Object determineCurrentLookupKey() {
+			return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Destino.REPLICA
+					: Destino.PRIMARIA;
+		}
+	}
+}
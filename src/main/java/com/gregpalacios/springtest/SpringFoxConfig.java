@@ -1,22 +1,65 @@
 package com.gregpalacios.springtest;
 
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 
 @Configuration
 @EnableWebMvc
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SpringFoxConfig {
 
 	@Bean
+	@ConditionalOnProperty(name = "springfox.documentation.enabled", matchIfMissing = true)
 	public Docket api() {
 		return new Docket(DocumentationType.SWAGGER_2).select()
 				.apis(RequestHandlerSelectors.basePackage("com.gregpalacios.springtest.controllers"))
 				.paths(PathSelectors.ant("/api/cuentas/*")).build();
 	}
+
+	/**
+	 * Springfox 3 no soporta los handler mappings basados en PathPatternParser
+	 * (los de Actuator); se excluyen de su escaneo.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "springfox.documentation.enabled", matchIfMissing = true)
+	public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof WebMvcRequestHandlerProvider) {
+					List<RequestMappingInfoHandlerMapping> mappings = getHandlerMappings(bean);
+					List<RequestMappingInfoHandlerMapping> soportados = mappings.stream()
+							.filter(mapping -> mapping.getPatternParser() == null).collect(Collectors.toList());
+					mappings.clear();
+					mappings.addAll(soportados);
+				}
+				return bean;
+			}
+
+			@SuppressWarnings("unchecked")
+			private List<RequestMappingInfoHandlerMapping> getHandlerMappings(Object bean) {
+				Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+				ReflectionUtils.makeAccessible(field);
+				return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+			}
+		};
+	}
 }
@@ -0,0 +1,143 @@
+package com.gregpalacios.springtest.admision;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.exceptions.TransferenciaRechazadaException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admisión de transferencias antes de que ocupen un hilo esperando filas
+ * bloqueadas: un compartimento por cuenta (origen y destino) y un límite
+ * global adaptativo. Lo que no entra se rechaza de inmediato con
+ * {@link TransferenciaRechazadaException}.
+ */
+@Component
+public class ControlAdmision {
+
+	private final boolean habilitada;
+
+	private final LimitePorClave<Long> porCuenta;
+
+	private final LimiteAimd global;
+
+	private final Counter rechazosCuenta;
+
+	private final Counter rechazosGlobal;
+
+	public ControlAdmision(MeterRegistry registro,
+			@Value("${cuentas.admision.habilitada:true}") boolean habilitada,
+			@Value("${cuentas.admision.por-cuenta:4}") int porCuenta,
+			@Value("${cuentas.admision.limite-inicial:20}") int limiteInicial,
+			@Value("${cuentas.admision.limite-minimo:4}") int limiteMinimo,
+			@Value("${cuentas.admision.limite-maximo:200}") int limiteMaximo,
+			@Value("${cuentas.admision.latencia-objetivo-ms:250}") long latenciaObjetivoMillis) {
+		this.habilitada = habilitada;
+		this.porCuenta = new LimitePorClave<>(porCuenta);
+		this.global = new LimiteAimd(limiteInicial, limiteMinimo, limiteMaximo,
+				TimeUnit.MILLISECONDS.toNanos(latenciaObjetivoMillis), 0.9);
+
+		this.rechazosCuenta = Counter.builder("cuentas.admision.rechazos").tag("motivo", "cuenta")
+				.description("Transferencias rechazadas por el límite de su cuenta").register(registro);
+		this.rechazosGlobal = Counter.builder("cuentas.admision.rechazos").tag("motivo", "global")
+				.description("Transferencias rechazadas por el límite global").register(registro);
+		Gauge.builder("cuentas.admision.limite", global, LimiteAimd::getLimite)
+				.description("Límite global de transferencias en curso").register(registro);
+		Gauge.builder("cuentas.admision.en.curso", global, LimiteAimd::getEnCurso)
+				.description("Transferencias admitidas en curso").register(registro);
+		Gauge.builder("cuentas.admision.cuentas.activas", this.porCuenta, LimitePorClave::claves)
+				.description("Cuentas con transferencias en curso").register(registro);
+	}
+
+	/**
+	 * Ejecuta la transferencia si hay lugar. Los conflictos de concurrencia
+	 * cuentan como sobrecarga para el límite global, igual que pasarse de la
+	 * latencia objetivo.
+	 */
+	public <T> T ejecutar(Long origenId, Long destinoId, Supplier<T> transferencia) {
+		List<Long> cuentas = new ArrayList<>(2);
+		cuentas.add(origenId);
+		cuentas.add(destinoId);
+		return admitir(cuentas, 1, transferencia);
+	}
+
+	public void ejecutar(Long origenId, Long destinoId, Runnable transferencia) {
+		ejecutar(origenId, destinoId, () -> {
+			transferencia.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Como ejecutar, para un lote de {@code transferencias}: ocupa un lugar en el
+	 * compartimento de cada cuenta distinta que toca y uno solo del límite
+	 * global, porque el lote entero es una transacción. Para el límite global
+	 * cuenta la latencia por transferencia, no la del lote: un lote grande
+	 * siempre supera el objetivo y bajaría el límite de las transferencias
+	 * sueltas.
+	 */
+	public <T> T ejecutarLote(Collection<Long> cuentaIds, int transferencias, Supplier<T> lote) {
+		return admitir(cuentaIds, transferencias, lote);
+	}
+
+	public int getLimite() {
+		return global.getLimite();
+	}
+
+	private <T> T admitir(Collection<Long> cuentaIds, int transferencias, Supplier<T> operacion) {
+		if (!habilitada) {
+			return operacion.get();
+		}
+		Set<Long> cuentas = new LinkedHashSet<>(cuentaIds);
+		cuentas.removeIf(Objects::isNull);
+		List<Long> adquiridas = new ArrayList<>(cuentas.size());
+		for (Long cuentaId : cuentas) {
+			if (!porCuenta.adquirir(cuentaId)) {
+				liberar(adquiridas);
+				throw rechazo(rechazosCuenta);
+			}
+			adquiridas.add(cuentaId);
+		}
+		if (!global.adquirir()) {
+			liberar(adquiridas);
+			throw rechazo(rechazosGlobal);
+		}
+
+		long inicio = System.nanoTime();
+		boolean sobrecarga = false;
+		try {
+			return operacion.get();
+		} catch (ConcurrencyFailureException e) {
+			sobrecarga = true;
+			throw e;
+		} finally {
+			global.liberar((System.nanoTime() - inicio) / Math.max(1, transferencias), sobrecarga);
+			liberar(adquiridas);
+		}
+	}
+
+	private void liberar(List<Long> cuentaIds) {
+		for (Long cuentaId : cuentaIds) {
+			porCuenta.liberar(cuentaId);
+		}
+	}
+
+	private static TransferenciaRechazadaException rechazo(Counter contador) {
+		contador.increment();
+		return new TransferenciaRechazadaException("Demasiadas transferencias en curso, reintente más tarde.");
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.gregpalacios.springtest.admision;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de concurrencia adaptativo AIMD. Mientras las operaciones terminan
+ * por debajo de la latencia objetivo el límite sube 1/límite por operación
+ * (uno por "ronda"); si una se pasa del objetivo o termina por sobrecarga, se
+ * multiplica por el factor de reducción. Lo que excede el límite se rechaza en
+ * el acto, sin esperar.
+ */
+public class LimiteAimd {
+
+	private final int minimo;
+
+	private final int maximo;
+
+	private final long objetivoNanos;
+
+	private final double factorReduccion;
+
+	private final AtomicInteger enCurso = new AtomicInteger();
+
+	private double limite;
+
+	private volatile int limiteEntero;
+
+	public LimiteAimd(int inicial, int minimo, int maximo, long objetivoNanos, double factorReduccion) {
+		this.minimo = minimo;
+		this.maximo = maximo;
+		this.objetivoNanos = objetivoNanos;
+		this.factorReduccion = factorReduccion;
+		this.limite = Math.max(minimo, Math.min(maximo, inicial));
+		this.limiteEntero = (int) limite;
+	}
+
+	public boolean adquirir() {
+		while (true) {
+			int actual = enCurso.get();
+			if (actual >= limiteEntero) {
+				return false;
+			}
+			if (enCurso.compareAndSet(actual, actual + 1)) {
+				return true;
+			}
+		}
+	}
+
+	public void liberar(long latenciaNanos, boolean sobrecarga) {
+		int enCursoAlTerminar = enCurso.getAndDecrement();
+		synchronized (this) {
+			if (sobrecarga || latenciaNanos > objetivoNanos) {
+				limite = Math.max(minimo, limite * factorReduccion);
+			} else if (enCursoAlTerminar * 2 >= limiteEntero) {
+				// Sólo sube si el límite se está usando: con poca carga no hay
+				// nada que medir y crecería sin fin.
+				limite = Math.min(maximo, limite + 1.0 / limite);
+			}
+			limiteEntero = (int) limite;
+		}
+	}
+
+	public int getLimite() {
+		return limiteEntero;
+	}
+
+	public int getEnCurso() {
+		return enCurso.get();
+	}
+
+}
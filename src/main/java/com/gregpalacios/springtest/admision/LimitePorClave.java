@@ -0,0 +1,46 @@
+package com.gregpalacios.springtest.admision;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compartimento (bulkhead) por clave: como máximo {@code maximo} operaciones
+ * en curso con la misma clave. Una clave sin operaciones en curso no ocupa
+ * memoria, así que el mapa crece con las cuentas activas, no con todas.
+ */
+public class LimitePorClave<K> {
+
+	private final int maximo;
+
+	private final ConcurrentHashMap<K, Integer> enCurso = new ConcurrentHashMap<>();
+
+	public LimitePorClave(int maximo) {
+		this.maximo = maximo;
+	}
+
+	public boolean adquirir(K clave) {
+		boolean[] admitida = new boolean[1];
+		enCurso.compute(clave, (k, actual) -> {
+			int cantidad = actual == null ? 0 : actual;
+			if (cantidad >= maximo) {
+				return actual;
+			}
+			admitida[0] = true;
+			return cantidad + 1;
+		});
+		return admitida[0];
+	}
+
+	public void liberar(K clave) {
+		enCurso.computeIfPresent(clave, (k, actual) -> actual <= 1 ? null : actual - 1);
+	}
+
+	public int enCurso(K clave) {
+		Integer cantidad = enCurso.get(clave);
+		return cantidad == null ? 0 : cantidad;
+	}
+
+	public int claves() {
+		return enCurso.size();
+	}
+
+}
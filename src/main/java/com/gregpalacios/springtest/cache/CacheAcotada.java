@@ -0,0 +1,127 @@
+package com.gregpalacios.springtest.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Mapa LRU con tamaño máximo y tiempo de vida por entrada. Las operaciones
+ * están sincronizadas: las entradas son pocas y baratas de copiar, así que un
+ * único monitor es suficiente y mantiene el orden de acceso consistente.
+ */
+public class CacheAcotada<K, V> {
+
+	private final int tamanioMaximo;
+
+	private final long ttlNanos;
+
+	private final LongSupplier reloj;
+
+	private final LinkedHashMap<K, Entrada<V>> entradas;
+
+	private final LongAdder aciertos = new LongAdder();
+
+	private final LongAdder fallos = new LongAdder();
+
+	private final LongAdder desalojos = new LongAdder();
+
+	public CacheAcotada(int tamanioMaximo, long ttlMillis) {
+		this(tamanioMaximo, ttlMillis, System::nanoTime);
+	}
+
+	CacheAcotada(int tamanioMaximo, long ttlMillis, LongSupplier reloj) {
+		this.tamanioMaximo = tamanioMaximo;
+		this.ttlNanos = ttlMillis * 1_000_000L;
+		this.reloj = reloj;
+		this.entradas = new LinkedHashMap<K, Entrada<V>>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+				if (size() > CacheAcotada.this.tamanioMaximo) {
+					desalojos.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public synchronized V obtener(K clave) {
+		Entrada<V> entrada = entradas.get(clave);
+		if (entrada == null) {
+			fallos.increment();
+			return null;
+		}
+		if (reloj.getAsLong() - entrada.creada > ttlNanos) {
+			entradas.remove(clave);
+			desalojos.increment();
+			fallos.increment();
+			return null;
+		}
+		aciertos.increment();
+		return entrada.valor;
+	}
+
+	public synchronized void guardar(K clave, V valor) {
+		entradas.put(clave, new Entrada<>(valor, reloj.getAsLong()));
+	}
+
+	public synchronized void eliminar(K clave) {
+		entradas.remove(clave);
+	}
+
+	public synchronized void limpiar() {
+		entradas.clear();
+	}
+
+	/**
+	 * Quita las entradas vencidas sin esperar a que se vuelvan a leer.
+	 */
+	public synchronized void purgarVencidas() {
+		long ahora = reloj.getAsLong();
+		Iterator<Entrada<V>> it = entradas.values().iterator();
+		while (it.hasNext()) {
+			if (ahora - it.next().creada > ttlNanos) {
+				it.remove();
+				desalojos.increment();
+			}
+		}
+	}
+
+	public synchronized int tamanio() {
+		return entradas.size();
+	}
+
+	public int getTamanioMaximo() {
+		return tamanioMaximo;
+	}
+
+	public long aciertos() {
+		return aciertos.sum();
+	}
+
+	public long fallos() {
+		return fallos.sum();
+	}
+
+	public long desalojos() {
+		return desalojos.sum();
+	}
+
+	private static final class Entrada<V> {
+
+		private final V valor;
+
+		private final long creada;
+
+		private Entrada(V valor, long creada) {
+			this.valor = valor;
+			this.creada = creada;
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.gregpalacios.springtest.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalescencia de lecturas concurrentes ("single flight"): mientras hay una
+ * carga en curso para una clave, las demás peticiones de esa clave esperan su
+ * resultado en lugar de repetirla. Cada carga lleva la generación de datos de
+ * su clave con la que empezó; quien llega con una generación posterior (hubo
+ * una escritura confirmada de esa clave entretanto) no se suma a ella y carga
+ * por su cuenta. Las escrituras de otras claves no deben mover la generación.
+ */
+public class VueloUnico<K, V> {
+
+	private final ConcurrentHashMap<K, Vuelo<V>> enCurso = new ConcurrentHashMap<>();
+
+	private final LongAdder cargas = new LongAdder();
+
+	private final LongAdder coalescidas = new LongAdder();
+
+	/**
+	 * Quien hace la carga recibe su resultado tal cual; cada uno de los que
+	 * esperaron recibe lo que devuelva {@code copia}. Si la carga falla, todos
+	 * reciben la misma excepción.
+	 */
+	public V obtener(K clave, long generacion, Supplier<V> carga, UnaryOperator<V> copia) {
+		Vuelo<V> propio = new Vuelo<>(generacion);
+		Vuelo<V> vuelo = enCurso.merge(clave, propio,
+				(actual, nuevo) -> actual.generacion >= generacion ? actual : nuevo);
+		if (vuelo != propio) {
+			coalescidas.increment();
+			return copia.apply(vuelo.esperar());
+		}
+
+		cargas.increment();
+		try {
+			V valor = carga.get();
+			vuelo.resultado.complete(valor);
+			return valor;
+		} catch (RuntimeException | Error e) {
+			vuelo.resultado.completeExceptionally(e);
+			throw e;
+		} finally {
+			enCurso.remove(clave, vuelo);
+		}
+	}
+
+	public long cargas() {
+		return cargas.sum();
+	}
+
+	public long coalescidas() {
+		return coalescidas.sum();
+	}
+
+	/**
+	 * Proporción de peticiones servidas por la carga de otra desde el arranque.
+	 */
+	public double proporcionCoalescidas() {
+		long coalescidas = coalescidas();
+		long total = cargas() + coalescidas;
+		return total == 0 ? 0 : (double) coalescidas / total;
+	}
+
+	public int enCurso() {
+		return enCurso.size();
+	}
+
+	private static final class Vuelo<V> {
+
+		private final long generacion;
+
+		private final CompletableFuture<V> resultado = new CompletableFuture<>();
+
+		private Vuelo(long generacion) {
+			this.generacion = generacion;
+		}
+
+		private V esperar() {
+			try {
+				return resultado.join();
+			} catch (CompletionException e) {
+				Throwable causa = e.getCause();
+				if (causa instanceof RuntimeException) {
+					throw (RuntimeException) causa;
+				}
+				if (causa instanceof Error) {
+					throw (Error) causa;
+				}
+				throw e;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.gregpalacios.springtest.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gregpalacios.springtest.models.EstadisticasBanco;
+import com.gregpalacios.springtest.models.ResumenBancos;
+import com.gregpalacios.springtest.services.BancoService;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/bancos")
+public class BancoController {
+
+	@Autowired
+	private BancoService bancoService;
+
+	@GetMapping()
+	public List<EstadisticasBanco> listar() {
+		return bancoService.listar();
+	}
+
+	@GetMapping("/estadisticas")
+	public ResumenBancos resumen() {
+		return bancoService.resumen();
+	}
+
+	@GetMapping("/{id}/estadisticas")
+	public ResponseEntity<EstadisticasBanco> estadisticas(@PathVariable("id") Long id) {
+		return ResponseEntity.of(bancoService.estadisticas(id));
+	}
+
+}
@@ -1,48 +1,132 @@
 package com.gregpalacios.springtest.controllers;
 
-import java.time.LocalDate;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gregpalacios.springtest.admision.ControlAdmision;
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.EstadoTransferencia;
+import com.gregpalacios.springtest.models.RespuestaTransferencia;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
 import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
 import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.TransferenciaAsincronaService;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/cuentas")
 public class CuentaController {
 
 	@Autowired
 	private CuentaService cuentaService;
 
+	@Autowired
+	private TransferenciaAsincronaService transferenciaAsincronaService;
+
+	@Autowired
+	private ControlAdmision controlAdmision;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${cuentas.listar.tamanio-pagina:50}")
+	private int tamanioPagina;
+
+	@Value("${cuentas.listar.tamanio-maximo:1000}")
+	private int tamanioMaximo;
+
 	@GetMapping()
-	@ResponseStatus(HttpStatus.OK)
-	public List<Cuenta> listar() {
-		return cuentaService.findAll();
+	public ResponseEntity<List<CuentaDto>> listar(@RequestParam(name = "despuesDe", required = false) Long despuesDe,
+			@RequestParam(name = "tamanio", required = false) Integer tamanio) {
+		// Sin cursor se devuelve la primera página; la tabla completa sólo sale
+		// por /exportar.
+		int limite = limite(tamanio);
+		List<CuentaDto> pagina = cuentaService.findPagina(despuesDe, limite);
+
+		ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+		if (pagina.size() == limite) {
+			respuesta.header("X-Siguiente-Cursor", String.valueOf(pagina.get(pagina.size() - 1).getId()));
+		}
+		return respuesta.body(pagina);
+	}
+
+	private int limite(Integer tamanio) {
+		return Math.min(tamanio == null ? tamanioPagina : Math.max(tamanio, 1), tamanioMaximo);
+	}
+
+	@GetMapping(value = "/exportar", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportar() {
+		ObjectWriter writer = objectMapper.writerFor(CuentaDto.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		StreamingResponseBody cuerpo = salida -> {
+			try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+				generador.writeStartArray();
+				cuentaService.exportar(cuenta -> {
+					try {
+						writer.writeValue(generador, cuenta);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generador.writeEndArray();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
 	}
 
 	@GetMapping("/{id}")
-	public ResponseEntity<?> detalle(@PathVariable("id") Long id) {
-		Cuenta cuenta = null;
-		try {
-			cuenta = cuentaService.findById(id);
-		} catch (Exception e) {
-			return ResponseEntity.notFound().build();
-		}
-		return ResponseEntity.ok(cuenta);
+	public ResponseEntity<CuentaDto> detalle(@PathVariable("id") Long id) {
+		return ResponseEntity.of(cuentaService.detalle(id));
+	}
+
+	@GetMapping("/{id}/saldo")
+	public ResponseEntity<BigDecimal> saldo(@PathVariable("id") Long id) {
+		return ResponseEntity.ok(cuentaService.revisarSaldo(id));
+	}
+
+	@GetMapping("/persona/{persona}")
+	public List<Cuenta> porPersona(@PathVariable("persona") String persona,
+			@RequestParam(name = "pagina", defaultValue = "0") int pagina,
+			@RequestParam(name = "tamanio", required = false) Integer tamanio) {
+		return cuentaService.findByPersona(persona, Math.max(pagina, 0), limite(tamanio));
+	}
+
+	@GetMapping("/buscar")
+	public List<Cuenta> buscar(@RequestParam("prefijo") String prefijo,
+			@RequestParam(name = "tamanio", required = false) Integer tamanio) {
+		return cuentaService.buscarPorPrefijo(prefijo, limite(tamanio));
 	}
 
 	@PostMapping()
@@ -51,17 +135,95 @@ public class CuentaController {
 		return cuentaService.save(cuenta);
 	}
 
+	@PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<Cuenta>> guardarLote(@RequestBody List<Cuenta> cuentas) {
+		return crearCuentas(cuentas);
+	}
+
+	@PostMapping(value = "/lote", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<List<Cuenta>> guardarLoteNdjson(InputStream body) throws IOException {
+		List<Cuenta> cuentas = new ArrayList<>();
+		try (MappingIterator<Cuenta> it = objectMapper.readerFor(Cuenta.class).readValues(body)) {
+			it.forEachRemaining(cuentas::add);
+		}
+		return crearCuentas(cuentas);
+	}
+
+	private ResponseEntity<List<Cuenta>> crearCuentas(List<Cuenta> cuentas) {
+		for (Cuenta cuenta : cuentas) {
+			if (cuenta.getId() != null) {
+				return ResponseEntity.badRequest().build();
+			}
+		}
+		return ResponseEntity.status(HttpStatus.CREATED).body(cuentaService.saveAll(cuentas));
+	}
+
 	@PostMapping("/transferir")
-	public ResponseEntity<?> transferir(@RequestBody TransaccionDto dto) {
-		cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getMonto(), dto.getBancoId());
+	public ResponseEntity<?> transferir(@RequestBody TransaccionDto dto,
+			@RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia) {
+		if (claveIdempotencia == null) {
+			if (transferenciaAsincronaService.isHabilitado()) {
+				return encolar(dto);
+			}
+			controlAdmision.ejecutar(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(),
+					() -> cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getMonto(),
+							dto.getBancoId()));
+			return ResponseEntity.ok(RespuestaTransferencia.ok(dto));
+		}
+
+		if (claveIdempotencia.isEmpty() || claveIdempotencia.length() > TransferenciaProcesada.LONGITUD_MAXIMA_CLAVE) {
+			return ResponseEntity.badRequest().build();
+		}
+		TransferenciaProcesada procesada = controlAdmision.ejecutar(dto.getCuentaOrigenId(),
+				dto.getCuentaDestinoId(), () -> cuentaService.transferir(claveIdempotencia, dto));
+		// Una repetición devuelve exactamente la respuesta original.
+		return ResponseEntity
+				.ok(RespuestaTransferencia.ok(procesada.getCreada().toLocalDate(), procesada.getTransaccion()));
+	}
+
+	private ResponseEntity<?> encolar(TransaccionDto dto) {
+		EstadoTransferencia estado;
+		try {
+			estado = transferenciaAsincronaService.enviar(dto);
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+		}
+		return ResponseEntity.accepted().location(URI.create("/api/cuentas/transferencias/" + estado.getId()))
+				.body(estado);
+	}
 
-		Map<String, Object> response = new HashMap<>();
-		response.put("date", LocalDate.now().toString());
-		response.put("status", "OK");
-		response.put("mensaje", "Transferencia realizada con éxito");
-		response.put("transaccion", dto);
+	@GetMapping("/transferencias/{id}")
+	public ResponseEntity<?> estadoTransferencia(@PathVariable("id") String id) {
+		EstadoTransferencia estado = transferenciaAsincronaService.estado(id);
+		if (estado == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(estado);
+	}
 
-		return ResponseEntity.ok(response);
+	@PostMapping(value = "/transferir/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	public List<ResultadoTransferencia> transferirLote(@RequestBody List<TransaccionDto> transacciones) {
+		return transferirLoteAdmitido(transacciones);
+	}
+
+	@PostMapping(value = "/transferir/lote", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	public List<ResultadoTransferencia> transferirLoteNdjson(InputStream body) throws IOException {
+		List<TransaccionDto> transacciones = new ArrayList<>();
+		try (MappingIterator<TransaccionDto> it = objectMapper.readerFor(TransaccionDto.class).readValues(body)) {
+			it.forEachRemaining(transacciones::add);
+		}
+		return transferirLoteAdmitido(transacciones);
+	}
+
+	private List<ResultadoTransferencia> transferirLoteAdmitido(List<TransaccionDto> transacciones) {
+		List<Long> cuentas = new ArrayList<>(transacciones.size() * 2);
+		for (TransaccionDto transaccion : transacciones) {
+			cuentas.add(transaccion.getCuentaOrigenId());
+			cuentas.add(transaccion.getCuentaDestinoId());
+		}
+		return controlAdmision.ejecutarLote(cuentas, transacciones.size(), () -> cuentaService.transferirLote(transacciones));
 	}
 
 	@DeleteMapping("/{id}")
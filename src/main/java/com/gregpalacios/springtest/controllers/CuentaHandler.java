@@ -0,0 +1,88 @@
+package com.gregpalacios.springtest.controllers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.RespuestaTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.CuentaReactivaService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Mismas respuestas que CuentaController, para la pila WebFlux. Los errores
+ * los traduce ManejadorErroresReactivo, aplicado en CuentaRouter.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CuentaHandler {
+
+	private final CuentaReactivaService cuentaService;
+
+	private final int tamanioPagina;
+
+	private final int tamanioMaximo;
+
+	public CuentaHandler(CuentaReactivaService cuentaService,
+			@Value("${cuentas.listar.tamanio-pagina:50}") int tamanioPagina,
+			@Value("${cuentas.listar.tamanio-maximo:1000}") int tamanioMaximo) {
+		this.cuentaService = cuentaService;
+		this.tamanioPagina = tamanioPagina;
+		this.tamanioMaximo = tamanioMaximo;
+	}
+
+	public Mono<ServerResponse> listar(ServerRequest request) {
+		Long despuesDe = request.queryParam("despuesDe").map(Long::valueOf).orElse(null);
+		int limite = Math.min(request.queryParam("tamanio").map(t -> Math.max(Integer.parseInt(t), 1))
+				.orElse(tamanioPagina), tamanioMaximo);
+		return cuentaService.findPagina(despuesDe, limite).flatMap(pagina -> {
+			ServerResponse.BodyBuilder respuesta = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+			if (pagina.size() == limite) {
+				respuesta.header("X-Siguiente-Cursor", String.valueOf(pagina.get(pagina.size() - 1).getId()));
+			}
+			return respuesta.bodyValue(pagina);
+		});
+	}
+
+	public Mono<ServerResponse> exportar(ServerRequest request) {
+		// Con NDJSON cada cuenta se escribe en cuanto llega; con JSON el arreglo
+		// también se escribe por partes y Netty aplica la contrapresión.
+		MediaType tipo = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+				? MediaType.APPLICATION_NDJSON
+				: MediaType.APPLICATION_JSON;
+		return ServerResponse.ok().contentType(tipo).body(cuentaService.findAll(), CuentaDto.class);
+	}
+
+	public Mono<ServerResponse> detalle(ServerRequest request) {
+		Long id = Long.valueOf(request.pathVariable("id"));
+		return cuentaService.findById(id)
+				.flatMap(cuenta -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(cuenta))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	public Mono<ServerResponse> guardar(ServerRequest request) {
+		return request.bodyToMono(Cuenta.class)
+				.flatMap(cuentaService::save)
+				.flatMap(cuenta -> ServerResponse.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON)
+						.bodyValue(cuenta));
+	}
+
+	public Mono<ServerResponse> transferir(ServerRequest request) {
+		return request.bodyToMono(TransaccionDto.class)
+				.flatMap(dto -> cuentaService.transferir(dto).thenReturn(dto))
+				.flatMap(dto -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+						.bodyValue(RespuestaTransferencia.ok(dto)));
+	}
+
+	public Mono<ServerResponse> eliminar(ServerRequest request) {
+		Long id = Long.valueOf(request.pathVariable("id"));
+		return cuentaService.deleteById(id).then(ServerResponse.noContent().build());
+	}
+}
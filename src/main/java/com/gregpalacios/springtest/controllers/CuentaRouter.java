@@ -0,0 +1,28 @@
+package com.gregpalacios.springtest.controllers;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CuentaRouter {
+
+	@Bean
+	public RouterFunction<ServerResponse> rutasCuentas(CuentaHandler handler, ManejadorErroresReactivo errores) {
+		return route(GET("/api/cuentas"), handler::listar)
+				.andRoute(GET("/api/cuentas/exportar"), handler::exportar)
+				.andRoute(GET("/api/cuentas/{id}"), handler::detalle)
+				.andRoute(POST("/api/cuentas"), handler::guardar)
+				.andRoute(POST("/api/cuentas/transferir"), handler::transferir)
+				.andRoute(DELETE("/api/cuentas/{id}"), handler::eliminar)
+				.filter(errores);
+	}
+}
@@ -0,0 +1,63 @@
+package com.gregpalacios.springtest.controllers;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.gregpalacios.springtest.exceptions.ClaveIdempotenciaEnUsoException;
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.MontoInvalidoException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
+import com.gregpalacios.springtest.exceptions.TransferenciaRechazadaException;
+
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ManejadorErrores {
+
+	static final String CONFLICTO = "La cuenta cambió mientras se modificaba; vuelva a leerla e intente de nuevo.";
+
+	@ExceptionHandler(RecursoNoEncontradoException.class)
+	public ResponseEntity<Void> noEncontrado() {
+		return ResponseEntity.notFound().build();
+	}
+
+	@ExceptionHandler(ClaveIdempotenciaEnUsoException.class)
+	public ResponseEntity<Void> claveEnUso() {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+	}
+
+	@ExceptionHandler(DineroInsuficienteException.class)
+	public ResponseEntity<Map<String, String>> dineroInsuficiente(DineroInsuficienteException e) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+				.body(Collections.singletonMap("mensaje", e.getMessage()));
+	}
+
+	@ExceptionHandler(MontoInvalidoException.class)
+	public ResponseEntity<Map<String, String>> montoInvalido(MontoInvalidoException e) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+				.body(Collections.singletonMap("mensaje", e.getMessage()));
+	}
+
+	/**
+	 * Versión desactualizada (una cuenta guardada sin la versión que se leyó) o
+	 * conflicto de una transferencia que agotó sus reintentos.
+	 */
+	@ExceptionHandler(ConcurrencyFailureException.class)
+	public ResponseEntity<Map<String, String>> conflicto() {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(Collections.singletonMap("mensaje", CONFLICTO));
+	}
+
+	@ExceptionHandler(TransferenciaRechazadaException.class)
+	public ResponseEntity<Map<String, String>> transferenciaRechazada(TransferenciaRechazadaException e) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(Collections.singletonMap("mensaje", e.getMessage()));
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.gregpalacios.springtest.controllers;
+
+import java.util.Collections;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.gregpalacios.springtest.exceptions.ClaveIdempotenciaEnUsoException;
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.MontoInvalidoException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
+import com.gregpalacios.springtest.exceptions.TransferenciaRechazadaException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * ManejadorErrores para las rutas funcionales de WebFlux, que no pasan por
+ * {@code @RestControllerAdvice}: mismos estados y mismos cuerpos.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ManejadorErroresReactivo implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+	@Override
+	public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+		// defer: el handler también puede fallar antes de devolver el Mono, por
+		// ejemplo al convertir un id de la ruta.
+		return Mono.defer(() -> next.handle(request))
+				.onErrorResume(RecursoNoEncontradoException.class, e -> ServerResponse.notFound().build())
+				.onErrorResume(ClaveIdempotenciaEnUsoException.class,
+						e -> ServerResponse.status(HttpStatus.UNPROCESSABLE_ENTITY).build())
+				.onErrorResume(DineroInsuficienteException.class,
+						e -> conMensaje(ServerResponse.status(HttpStatus.UNPROCESSABLE_ENTITY), e))
+				.onErrorResume(MontoInvalidoException.class,
+						e -> conMensaje(ServerResponse.status(HttpStatus.UNPROCESSABLE_ENTITY), e))
+				.onErrorResume(ConcurrencyFailureException.class,
+						e -> ServerResponse.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON)
+								.bodyValue(Collections.singletonMap("mensaje", ManejadorErrores.CONFLICTO)))
+				.onErrorResume(TransferenciaRechazadaException.class, e -> conMensaje(
+						ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1"), e))
+				.onErrorResume(NumberFormatException.class, e -> ServerResponse.badRequest().build());
+	}
+
+	private static Mono<ServerResponse> conMensaje(ServerResponse.BodyBuilder respuesta, RuntimeException e) {
+		return respuesta.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(Collections.singletonMap("mensaje", e.getMessage()));
+	}
+
+}
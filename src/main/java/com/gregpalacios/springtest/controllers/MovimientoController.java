@@ -0,0 +1,56 @@
+package com.gregpalacios.springtest.controllers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.services.MovimientoService;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/cuentas")
+public class MovimientoController {
+
+	@Autowired
+	private MovimientoService movimientoService;
+
+	@Value("${cuentas.listar.tamanio-pagina:50}")
+	private int tamanioPagina;
+
+	@Value("${cuentas.listar.tamanio-maximo:1000}")
+	private int tamanioMaximo;
+
+	@GetMapping("/{id}/movimientos")
+	public ResponseEntity<List<Movimiento>> historial(@PathVariable("id") Long id,
+			@RequestParam(name = "antesDe", required = false) Long antesDe,
+			@RequestParam(name = "tamanio", required = false) Integer tamanio) {
+		int limite = Math.min(tamanio == null ? tamanioPagina : Math.max(tamanio, 1), tamanioMaximo);
+		List<Movimiento> pagina = movimientoService.historial(id, antesDe, limite);
+
+		ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+		if (pagina.size() == limite) {
+			respuesta.header("X-Siguiente-Cursor", String.valueOf(pagina.get(pagina.size() - 1).getId()));
+		}
+		return respuesta.body(pagina);
+	}
+
+	@GetMapping("/{id}/saldo-libro")
+	public ResponseEntity<BigDecimal> saldoSegunLibro(@PathVariable("id") Long id) {
+		BigDecimal saldo = movimientoService.saldoSegunLibro(id);
+		if (saldo == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(saldo);
+	}
+
+}
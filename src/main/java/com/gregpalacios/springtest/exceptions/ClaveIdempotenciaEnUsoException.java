@@ -0,0 +1,11 @@
+package com.gregpalacios.springtest.exceptions;
+
+public class ClaveIdempotenciaEnUsoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ClaveIdempotenciaEnUsoException(String message) {
+		super(message);
+	}
+
+}
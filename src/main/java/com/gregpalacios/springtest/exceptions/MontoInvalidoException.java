@@ -0,0 +1,14 @@
+package com.gregpalacios.springtest.exceptions;
+
+/**
+ * Monto nulo o con fracciones de centavo.
+ */
+public class MontoInvalidoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public MontoInvalidoException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.gregpalacios.springtest.exceptions;
+
+/**
+ * Cuenta o banco inexistente. Es un resultado esperado (ids mal escritos,
+ * clientes que recorren ids), así que no captura la traza: crearla cuesta más
+ * que la propia consulta.
+ */
+public class RecursoNoEncontradoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RecursoNoEncontradoException(String message) {
+		super(message, null, false, false);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.gregpalacios.springtest.exceptions;
+
+/**
+ * Transferencia rechazada por el control de admisión (429). Se lanza en
+ * ráfagas, precisamente cuando hay sobrecarga, así que no captura la traza.
+ */
+public class TransferenciaRechazadaException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TransferenciaRechazadaException(String message) {
+		super(message, null, false, false);
+	}
+
+}
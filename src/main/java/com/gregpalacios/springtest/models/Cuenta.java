@@ -1,35 +1,67 @@
 package com.gregpalacios.springtest.models;
 
 import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
 import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
 
 @Entity
-@Table(name = "cuentas")
+@Table(name = "cuentas", indexes = { @Index(name = "idx_cuentas_persona", columnList = "persona"),
+		@Index(name = "idx_cuentas_persona_normalizada", columnList = "persona_normalizada, id") })
 public class Cuenta {
 
+	private static final int SIN_SALDO = -1;
+
+	private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+	private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cuentas_seq")
+	@SequenceGenerator(name = "cuentas_seq", sequenceName = "cuentas_seq", allocationSize = 50)
 	private Long id;
 
 	private String persona;
 
-	private BigDecimal saldo;
+	// Persona sin acentos ni mayúsculas, para buscar "andres" y encontrar
+	// "Andrés". Se mantiene desde setPersona.
+	@Column(name = "persona_normalizada")
+	private String personaNormalizada;
+
+	// El saldo se guarda en centavos (ver Dinero); la columna y el JSON siguen
+	// siendo BigDecimal a través de getSaldo/setSaldo.
+	@Transient
+	private long saldoCentavos;
+
+	@Transient
+	private int escalaSaldo = SIN_SALDO;
+
+	@Version
+	private long version;
 
 	public Cuenta() {
 	}
 
 	public Cuenta(Long id, String persona, BigDecimal saldo) {
 		this.id = id;
-		this.persona = persona;
-		this.saldo = saldo;
+		setPersona(persona);
+		setSaldo(saldo);
 	}
 
 	public Long getId() {
@@ -46,28 +78,84 @@ public class Cuenta {
 
 	public void setPersona(String persona) {
 		this.persona = persona;
+		this.personaNormalizada = normalizarPersona(persona);
+	}
+
+	/**
+	 * Minúsculas, sin acentos y con los espacios colapsados: "  Andrés  Pérez"
+	 * queda "andres perez".
+	 */
+	public static String normalizarPersona(String persona) {
+		if (persona == null) {
+			return null;
+		}
+		String sinMarcas = MARCAS.matcher(Normalizer.normalize(persona, Normalizer.Form.NFD)).replaceAll("");
+		return ESPACIOS.matcher(sinMarcas.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
 	}
 
+	@Access(AccessType.PROPERTY)
 	public BigDecimal getSaldo() {
-		return saldo;
+		return escalaSaldo == SIN_SALDO ? null : Dinero.aBigDecimal(saldoCentavos, escalaSaldo);
 	}
 
 	public void setSaldo(BigDecimal saldo) {
-		this.saldo = saldo;
+		if (saldo == null) {
+			this.saldoCentavos = 0;
+			this.escalaSaldo = SIN_SALDO;
+		} else {
+			this.saldoCentavos = Dinero.centavos(saldo);
+			this.escalaSaldo = Dinero.escala(saldo);
+		}
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public Cuenta copiar() {
+		Cuenta copia = new Cuenta();
+		copia.id = id;
+		copia.persona = persona;
+		copia.personaNormalizada = personaNormalizada;
+		copia.saldoCentavos = saldoCentavos;
+		copia.escalaSaldo = escalaSaldo;
+		copia.version = version;
+		return copia;
 	}
 
 	public void debito(BigDecimal monto) {
-		BigDecimal nuevoSaldo = this.saldo.subtract(monto);
+		debito(Dinero.de(monto));
+	}
 
-		if (nuevoSaldo.compareTo(BigDecimal.ZERO) < 0) {
+	public void debito(Dinero monto) {
+		long nuevoSaldo = Dinero.restar(saldoActual(), monto.getCentavos());
+
+		if (nuevoSaldo < 0) {
 			throw new DineroInsuficienteException("Dinero insuficiente en la cuenta.");
 		}
 
-		this.saldo = nuevoSaldo;
+		this.saldoCentavos = nuevoSaldo;
+		this.escalaSaldo = Math.max(escalaSaldo, monto.getEscala());
 	}
 
 	public void credito(BigDecimal monto) {
-		this.saldo = saldo.add(monto);
+		credito(Dinero.de(monto));
+	}
+
+	public void credito(Dinero monto) {
+		this.saldoCentavos = Dinero.sumar(saldoActual(), monto.getCentavos());
+		this.escalaSaldo = Math.max(escalaSaldo, monto.getEscala());
+	}
+
+	private long saldoActual() {
+		if (escalaSaldo == SIN_SALDO) {
+			throw new NullPointerException("La cuenta no tiene saldo.");
+		}
+		return saldoCentavos;
 	}
 
 	@Override
@@ -78,12 +166,12 @@ public class Cuenta {
 			return false;
 		Cuenta cuenta = (Cuenta) o;
 		return Objects.equals(id, cuenta.id) && Objects.equals(persona, cuenta.persona)
-				&& Objects.equals(saldo, cuenta.saldo);
+				&& saldoCentavos == cuenta.saldoCentavos && escalaSaldo == cuenta.escalaSaldo;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(id, persona, saldo);
+		return Objects.hash(id, persona, saldoCentavos, escalaSaldo);
 	}
 
 }
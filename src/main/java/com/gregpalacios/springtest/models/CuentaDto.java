@@ -0,0 +1,55 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Vista de solo lectura de una cuenta, con el mismo JSON que Cuenta. Se llena
+ * con consultas "select new" y no pasa por el contexto de persistencia: sin
+ * copia para dirty checking ni entrada en la sesión.
+ */
+@JsonPropertyOrder({ "id", "persona", "version", "saldo" })
+public final class CuentaDto {
+
+	private final Long id;
+
+	private final String persona;
+
+	private final long version;
+
+	private final BigDecimal saldo;
+
+	public CuentaDto(Long id, String persona, BigDecimal saldo, long version) {
+		this.id = id;
+		this.persona = persona;
+		this.saldo = saldo;
+		this.version = version;
+	}
+
+	public static CuentaDto de(Cuenta cuenta) {
+		return new CuentaDto(cuenta.getId(), cuenta.getPersona(), cuenta.getSaldo(), cuenta.getVersion());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getPersona() {
+		return persona;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public BigDecimal getSaldo() {
+		return saldo;
+	}
+
+	@Override
+	public String toString() {
+		return "CuentaDto [id=" + id + ", persona=" + persona + ", saldo=" + saldo + "]";
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Importe en centavos (long, escala fija 2) para operar sin crear BigDecimal.
+ * <p>
+ * Reglas:
+ * <ul>
+ * <li>No se redondea nunca: un importe con dígitos distintos de cero más allá
+ * del centavo lanza {@link ArithmeticException}; los ceros sobrantes
+ * ("10.500") se aceptan.</li>
+ * <li>Se conserva la escala con la que llegó el importe (0, 1 o 2), de modo que
+ * al volver a BigDecimal "1000" - "100" sigue siendo "900", como con
+ * BigDecimal.subtract.</li>
+ * <li>Las sumas y restas que desbordan un long lanzan
+ * {@link ArithmeticException}.</li>
+ * </ul>
+ */
+public final class Dinero {
+
+	public static final int ESCALA_MAXIMA = 2;
+
+	private static final long[] FACTORES = { 100L, 10L, 1L };
+
+	private final long centavos;
+
+	private final int escala;
+
+	private Dinero(long centavos, int escala) {
+		this.centavos = centavos;
+		this.escala = escala;
+	}
+
+	public static Dinero de(BigDecimal monto) {
+		return new Dinero(centavos(monto), escala(monto));
+	}
+
+	public static Dinero deCentavos(long centavos) {
+		return new Dinero(centavos, ESCALA_MAXIMA);
+	}
+
+	public static long centavos(BigDecimal monto) {
+		try {
+			return monto.movePointRight(ESCALA_MAXIMA).longValueExact();
+		} catch (ArithmeticException e) {
+			throw new ArithmeticException("Importe no representable en centavos: " + monto.toPlainString());
+		}
+	}
+
+	public static int escala(BigDecimal monto) {
+		int escala = monto.scale();
+		if (escala < 0) {
+			return 0;
+		}
+		return Math.min(escala, ESCALA_MAXIMA);
+	}
+
+	public static BigDecimal aBigDecimal(long centavos, int escala) {
+		long factor = FACTORES[escala];
+		if (centavos % factor != 0) {
+			throw new ArithmeticException("El importe " + centavos + " no cabe en escala " + escala);
+		}
+		return BigDecimal.valueOf(centavos / factor, escala);
+	}
+
+	public static long sumar(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	public static long restar(long a, long b) {
+		return Math.subtractExact(a, b);
+	}
+
+	public long getCentavos() {
+		return centavos;
+	}
+
+	public int getEscala() {
+		return escala;
+	}
+
+	public int signum() {
+		return Long.signum(centavos);
+	}
+
+	public BigDecimal aBigDecimal() {
+		return aBigDecimal(centavos, escala);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		Dinero dinero = (Dinero) o;
+		return centavos == dinero.centavos && escala == dinero.escala;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(centavos) * 31 + escala;
+	}
+
+	@Override
+	public String toString() {
+		return aBigDecimal().toPlainString();
+	}
+
+}
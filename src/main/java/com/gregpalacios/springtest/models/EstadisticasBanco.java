@@ -0,0 +1,44 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Totales de las transferencias confirmadas con un banco.
+ */
+@JsonPropertyOrder({ "id", "nombre", "transferencias", "volumen" })
+public final class EstadisticasBanco {
+
+	private final Long id;
+
+	private final String nombre;
+
+	private final long transferencias;
+
+	private final BigDecimal volumen;
+
+	public EstadisticasBanco(Long id, String nombre, long transferencias, BigDecimal volumen) {
+		this.id = id;
+		this.nombre = nombre;
+		this.transferencias = transferencias;
+		this.volumen = volumen;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public long getTransferencias() {
+		return transferencias;
+	}
+
+	public BigDecimal getVolumen() {
+		return volumen;
+	}
+
+}
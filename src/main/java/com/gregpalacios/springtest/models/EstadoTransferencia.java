@@ -0,0 +1,46 @@
+package com.gregpalacios.springtest.models;
+
+public class EstadoTransferencia {
+
+	public static final String PENDIENTE = "PENDIENTE";
+
+	private final String id;
+
+	private final String status;
+
+	private final String mensaje;
+
+	private final TransaccionDto transaccion;
+
+	public EstadoTransferencia(String id, String status, String mensaje, TransaccionDto transaccion) {
+		this.id = id;
+		this.status = status;
+		this.mensaje = mensaje;
+		this.transaccion = transaccion;
+	}
+
+	public static EstadoTransferencia pendiente(String id, TransaccionDto transaccion) {
+		return new EstadoTransferencia(id, PENDIENTE, "Transferencia en cola", transaccion);
+	}
+
+	public static EstadoTransferencia de(String id, ResultadoTransferencia resultado) {
+		return new EstadoTransferencia(id, resultado.getStatus(), resultado.getMensaje(), resultado.getTransaccion());
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getMensaje() {
+		return mensaje;
+	}
+
+	public TransaccionDto getTransaccion() {
+		return transaccion;
+	}
+
+}
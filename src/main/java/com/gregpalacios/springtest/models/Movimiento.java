@@ -0,0 +1,106 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Asiento del libro de movimientos. Sólo se inserta: el saldo de una cuenta es
+ * el de su instantánea más la suma de los movimientos aún no compactados. La
+ * compactación marca compactado con una sentencia nativa.
+ */
+@Entity
+@Immutable
+@Table(name = "movimientos", indexes = { @Index(name = "idx_movimientos_cuenta", columnList = "cuenta_id, id"),
+		@Index(name = "idx_movimientos_compactado", columnList = "compactado, cuenta_id") })
+public class Movimiento {
+
+	public enum Tipo {
+		DEBITO, CREDITO, AJUSTE
+	}
+
+	// Con IDENTITY Hibernate no puede agrupar los INSERT en lotes JDBC.
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimientos_seq")
+	@SequenceGenerator(name = "movimientos_seq", sequenceName = "movimientos_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "cuenta_id", nullable = false)
+	private Long cuentaId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 10, nullable = false)
+	private Tipo tipo;
+
+	@Column(nullable = false)
+	private BigDecimal importe;
+
+	private Long contraparteId;
+
+	private Long bancoId;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING)
+	@Column(nullable = false)
+	private LocalDateTime fecha;
+
+	// Marca por fila y no por id: los ids de secuencia no siguen el orden de
+	// confirmación, así que un id menor puede llegar después de compactar.
+	@Column(nullable = false)
+	private boolean compactado;
+
+	public Movimiento() {
+	}
+
+	public Movimiento(Long cuentaId, Tipo tipo, BigDecimal importe, Long contraparteId, Long bancoId,
+			LocalDateTime fecha) {
+		this.cuentaId = cuentaId;
+		this.tipo = tipo;
+		this.importe = importe;
+		this.contraparteId = contraparteId;
+		this.bancoId = bancoId;
+		this.fecha = fecha;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getCuentaId() {
+		return cuentaId;
+	}
+
+	public Tipo getTipo() {
+		return tipo;
+	}
+
+	public BigDecimal getImporte() {
+		return importe;
+	}
+
+	public Long getContraparteId() {
+		return contraparteId;
+	}
+
+	public Long getBancoId() {
+		return bancoId;
+	}
+
+	public LocalDateTime getFecha() {
+		return fecha;
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.gregpalacios.springtest.models;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Respuesta de una transferencia: {"date", "transaccion", "mensaje",
+ * "status"}, el mismo JSON que el mapa que se armaba en cada petición. Los
+ * nombres y los valores constantes se escriben ya codificados y la fecha de
+ * hoy se reutiliza hasta medianoche.
+ */
+@JsonSerialize(using = RespuestaTransferencia.Serializador.class)
+public final class RespuestaTransferencia {
+
+	private static volatile Hoy hoy = new Hoy(LocalDate.now());
+
+	private final String date;
+
+	private final TransaccionDto transaccion;
+
+	private RespuestaTransferencia(String date, TransaccionDto transaccion) {
+		this.date = date;
+		this.transaccion = transaccion;
+	}
+
+	public static RespuestaTransferencia ok(TransaccionDto transaccion) {
+		Hoy actual = hoy;
+		if (System.currentTimeMillis() >= actual.hasta) {
+			actual = new Hoy(LocalDate.now());
+			hoy = actual;
+		}
+		return new RespuestaTransferencia(actual.texto, transaccion);
+	}
+
+	/**
+	 * Para repetir la respuesta de una transferencia ya procesada.
+	 */
+	public static RespuestaTransferencia ok(LocalDate fecha, TransaccionDto transaccion) {
+		return new RespuestaTransferencia(fecha.toString(), transaccion);
+	}
+
+	public String getDate() {
+		return date;
+	}
+
+	public TransaccionDto getTransaccion() {
+		return transaccion;
+	}
+
+	public String getMensaje() {
+		return ResultadoTransferencia.MENSAJE_OK;
+	}
+
+	public String getStatus() {
+		return ResultadoTransferencia.OK;
+	}
+
+	private static final class Hoy {
+
+		private final String texto;
+
+		private final long hasta;
+
+		Hoy(LocalDate fecha) {
+			this.texto = fecha.toString();
+			this.hasta = fecha.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		}
+	}
+
+	static final class Serializador extends StdSerializer<RespuestaTransferencia> {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final SerializableString DATE = new SerializedString("date");
+
+		private static final SerializableString TRANSACCION = new SerializedString("transaccion");
+
+		private static final SerializableString MENSAJE = new SerializedString("mensaje");
+
+		private static final SerializableString STATUS = new SerializedString("status");
+
+		private static final SerializableString MENSAJE_OK = new SerializedString(ResultadoTransferencia.MENSAJE_OK);
+
+		private static final SerializableString OK = new SerializedString(ResultadoTransferencia.OK);
+
+		Serializador() {
+			super(RespuestaTransferencia.class);
+		}
+
+		@Override
+		public void serialize(RespuestaTransferencia respuesta, JsonGenerator gen, SerializerProvider provider)
+				throws IOException {
+			gen.writeStartObject(respuesta);
+			gen.writeFieldName(DATE);
+			gen.writeString(respuesta.date);
+			gen.writeFieldName(TRANSACCION);
+			provider.defaultSerializeValue(respuesta.transaccion, gen);
+			gen.writeFieldName(MENSAJE);
+			gen.writeString(MENSAJE_OK);
+			gen.writeFieldName(STATUS);
+			gen.writeString(OK);
+			gen.writeEndObject();
+		}
+	}
+
+}
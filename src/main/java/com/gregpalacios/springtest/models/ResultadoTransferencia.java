@@ -0,0 +1,69 @@
+package com.gregpalacios.springtest.models;
+
+public class ResultadoTransferencia {
+
+	public static final String OK = "OK";
+
+	public static final String ERROR = "ERROR";
+
+	public static final String MENSAJE_OK = "Transferencia realizada con éxito";
+
+	private int indice;
+
+	private String status;
+
+	private String mensaje;
+
+	private TransaccionDto transaccion;
+
+	public ResultadoTransferencia() {
+	}
+
+	public ResultadoTransferencia(int indice, String status, String mensaje, TransaccionDto transaccion) {
+		this.indice = indice;
+		this.status = status;
+		this.mensaje = mensaje;
+		this.transaccion = transaccion;
+	}
+
+	public static ResultadoTransferencia ok(int indice, TransaccionDto transaccion) {
+		return new ResultadoTransferencia(indice, OK, MENSAJE_OK, transaccion);
+	}
+
+	public static ResultadoTransferencia error(int indice, TransaccionDto transaccion, String mensaje) {
+		return new ResultadoTransferencia(indice, ERROR, mensaje, transaccion);
+	}
+
+	public int getIndice() {
+		return indice;
+	}
+
+	public void setIndice(int indice) {
+		this.indice = indice;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public String getMensaje() {
+		return mensaje;
+	}
+
+	public void setMensaje(String mensaje) {
+		this.mensaje = mensaje;
+	}
+
+	public TransaccionDto getTransaccion() {
+		return transaccion;
+	}
+
+	public void setTransaccion(TransaccionDto transaccion) {
+		this.transaccion = transaccion;
+	}
+
+}
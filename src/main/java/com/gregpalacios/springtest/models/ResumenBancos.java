@@ -0,0 +1,45 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Totales de todos los bancos y de todas las cuentas. Las cuentas no
+ * pertenecen a un banco, así que el saldo sólo se agrega en conjunto.
+ */
+@JsonPropertyOrder({ "transferencias", "volumen", "cuentas", "saldoTotal" })
+public final class ResumenBancos {
+
+	private final long transferencias;
+
+	private final BigDecimal volumen;
+
+	private final long cuentas;
+
+	private final BigDecimal saldoTotal;
+
+	public ResumenBancos(long transferencias, BigDecimal volumen, long cuentas, BigDecimal saldoTotal) {
+		this.transferencias = transferencias;
+		this.volumen = volumen;
+		this.cuentas = cuentas;
+		this.saldoTotal = saldoTotal;
+	}
+
+	public long getTransferencias() {
+		return transferencias;
+	}
+
+	public BigDecimal getVolumen() {
+		return volumen;
+	}
+
+	public long getCuentas() {
+		return cuentas;
+	}
+
+	public BigDecimal getSaldoTotal() {
+		return saldoTotal;
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Saldo de una cuenta tras aplicar todos sus movimientos marcados como
+ * compactados. La compactación la adelanta periódicamente.
+ */
+@Entity
+@Table(name = "saldos_instantaneas")
+public class SaldoInstantanea implements Persistable<Long> {
+
+	@Id
+	@Column(name = "cuenta_id")
+	private Long cuentaId;
+
+	@Column(nullable = false)
+	private BigDecimal saldo;
+
+	@Column(nullable = false)
+	private LocalDateTime actualizada;
+
+	@Transient
+	private boolean nueva = true;
+
+	public SaldoInstantanea() {
+	}
+
+	public SaldoInstantanea(Long cuentaId, BigDecimal saldo, LocalDateTime actualizada) {
+		this.cuentaId = cuentaId;
+		this.saldo = saldo;
+		this.actualizada = actualizada;
+	}
+
+	@Override
+	public Long getId() {
+		return cuentaId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return nueva;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarGuardada() {
+		this.nueva = false;
+	}
+
+	public Long getCuentaId() {
+		return cuentaId;
+	}
+
+	public BigDecimal getSaldo() {
+		return saldo;
+	}
+
+	public LocalDateTime getActualizada() {
+		return actualizada;
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Transferencia aceptada por el motor asíncrono. La fila se confirma antes de
+ * responder 202 y pasa de PENDIENTE a OK o ERROR en la misma transacción que
+ * mueve el dinero, así que una transferencia aceptada nunca se pierde ni se
+ * aplica dos veces aunque la instancia caiga con la cola a medias.
+ */
+@Entity
+@Table(name = "transferencias_asincronas", indexes = @Index(name = "idx_transferencias_asincronas_estado",
+		columnList = "estado, creada"))
+public class TransferenciaAsincrona implements Persistable<String> {
+
+	@Id
+	@Column(length = 36)
+	private String id;
+
+	private Long cuentaOrigenId;
+
+	private Long cuentaDestinoId;
+
+	private BigDecimal monto;
+
+	private Long bancoId;
+
+	@Column(length = 10, nullable = false)
+	private String estado;
+
+	private String mensaje;
+
+	@Column(nullable = false)
+	private LocalDateTime creada;
+
+	// Dos instancias que reclaman la misma fila: la segunda falla al confirmar
+	// y, al repetir, ya no la encuentra PENDIENTE.
+	@Version
+	private Long version;
+
+	@Transient
+	private boolean nueva = true;
+
+	public TransferenciaAsincrona() {
+	}
+
+	public TransferenciaAsincrona(String id, TransaccionDto dto, LocalDateTime creada) {
+		this.id = id;
+		this.cuentaOrigenId = dto.getCuentaOrigenId();
+		this.cuentaDestinoId = dto.getCuentaDestinoId();
+		this.monto = dto.getMonto();
+		this.bancoId = dto.getBancoId();
+		this.estado = EstadoTransferencia.PENDIENTE;
+		this.creada = creada;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public boolean isNew() {
+		return nueva;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarGuardada() {
+		this.nueva = false;
+	}
+
+	public String getEstado() {
+		return estado;
+	}
+
+	public LocalDateTime getCreada() {
+		return creada;
+	}
+
+	public void resolver(ResultadoTransferencia resultado) {
+		this.estado = resultado.getStatus();
+		this.mensaje = resultado.getMensaje();
+	}
+
+	public TransaccionDto getTransaccion() {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(cuentaOrigenId);
+		dto.setCuentaDestinoId(cuentaDestinoId);
+		dto.setMonto(monto);
+		dto.setBancoId(bancoId);
+		return dto;
+	}
+
+	public EstadoTransferencia aEstado() {
+		if (EstadoTransferencia.PENDIENTE.equals(estado)) {
+			return EstadoTransferencia.pendiente(id, getTransaccion());
+		}
+		return new EstadoTransferencia(id, estado, mensaje, getTransaccion());
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.gregpalacios.springtest.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Transferencia confirmada con una clave de idempotencia. La fila se inserta en
+ * la misma transacción que mueve el dinero, así que existe si y sólo si la
+ * transferencia se aplicó.
+ */
+@Entity
+@Table(name = "transferencias_procesadas")
+public class TransferenciaProcesada implements Persistable<String> {
+
+	public static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+	@Id
+	@Column(length = LONGITUD_MAXIMA_CLAVE)
+	private String clave;
+
+	private Long cuentaOrigenId;
+
+	private Long cuentaDestinoId;
+
+	private BigDecimal monto;
+
+	private Long bancoId;
+
+	private LocalDateTime creada;
+
+	// Con la clave asignada por el cliente, save() haría un SELECT previo para
+	// decidir entre persist y merge; así siempre es un INSERT.
+	@Transient
+	private boolean nueva = true;
+
+	public TransferenciaProcesada() {
+	}
+
+	public TransferenciaProcesada(String clave, TransaccionDto dto, LocalDateTime creada) {
+		this.clave = clave;
+		this.cuentaOrigenId = dto.getCuentaOrigenId();
+		this.cuentaDestinoId = dto.getCuentaDestinoId();
+		this.monto = dto.getMonto();
+		this.bancoId = dto.getBancoId();
+		this.creada = creada;
+	}
+
+	@Override
+	public String getId() {
+		return clave;
+	}
+
+	@Override
+	public boolean isNew() {
+		return nueva;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarGuardada() {
+		this.nueva = false;
+	}
+
+	public String getClave() {
+		return clave;
+	}
+
+	public LocalDateTime getCreada() {
+		return creada;
+	}
+
+	public TransaccionDto getTransaccion() {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(cuentaOrigenId);
+		dto.setCuentaDestinoId(cuentaDestinoId);
+		dto.setMonto(monto);
+		dto.setBancoId(bancoId);
+		return dto;
+	}
+
+	public boolean corresponde(TransaccionDto dto) {
+		return Objects.equals(cuentaOrigenId, dto.getCuentaOrigenId())
+				&& Objects.equals(cuentaDestinoId, dto.getCuentaDestinoId())
+				&& Objects.equals(bancoId, dto.getBancoId())
+				&& (monto == null ? dto.getMonto() == null
+						: dto.getMonto() != null && monto.compareTo(dto.getMonto()) == 0);
+	}
+
+}
@@ -1,9 +1,19 @@
 package com.gregpalacios.springtest.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.gregpalacios.springtest.models.Banco;
 
 public interface BancoRepository extends JpaRepository<Banco, Long> {
 
+	@Query("select coalesce(sum(b.totalTransferencias), 0) from Banco b")
+	long sumarTotalTransferencias();
+
+	@Transactional
+	@Modifying
+	@Query("update Banco b set b.totalTransferencias = b.totalTransferencias + ?2 where b.id=?1")
+	int incrementarTotalTransferencias(Long id, int delta);
 }
@@ -1,14 +1,74 @@
 package com.gregpalacios.springtest.repositories;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
 
 public interface CuentaRepository extends JpaRepository<Cuenta, Long> {
+
+	String DTO = "select new com.gregpalacios.springtest.models.CuentaDto(c.id, c.persona, c.saldo, c.version) "
+			+ "from Cuenta c ";
 	
+	/**
+	 * Solo sirve si la persona tiene una única cuenta; con nombres repetidos
+	 * usar findByPersonaNormalizada.
+	 */
 	@Query("select c from Cuenta c where c.persona=?1")
     Optional<Cuenta> findByPersona(String persona);
+
+	List<Cuenta> findByPersonaNormalizadaOrderByIdAsc(String personaNormalizada, Pageable pageable);
+
+	@Query("select c.id, c.personaNormalizada from Cuenta c where c.id > ?1 order by c.id")
+	List<Object[]> findPersonasDespuesDe(Long id, Pageable pageable);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from Cuenta c where c.id=?1")
+	Optional<Cuenta> findByIdForUpdate(Long id);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from Cuenta c where c.id in ?1 order by c.id")
+	List<Cuenta> findAllByIdForUpdate(Collection<Long> ids);
+
+	@Query(DTO + "where c.id > ?1 order by c.id")
+	List<CuentaDto> findDtosDespuesDe(Long id, Pageable pageable);
+
+	@Query(DTO + "where c.id = ?1")
+	Optional<CuentaDto> findDtoById(Long id);
+
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query(DTO + "order by c.id")
+	Stream<CuentaDto> streamDtos();
+
+	@Query("select c.saldo from Cuenta c where c.id = ?1")
+	Optional<BigDecimal> findSaldoById(Long id);
+
+	@Query("select sum(c.saldo) from Cuenta c")
+	BigDecimal sumarSaldos();
+
+	/**
+	 * Descuenta el monto solo si el saldo alcanza. Devuelve 0 si la cuenta no
+	 * existe o no tiene fondos.
+	 */
+	@Modifying
+	@Query("update Cuenta c set c.saldo = c.saldo - ?2, c.version = c.version + 1 where c.id = ?1 and c.saldo >= ?2")
+	int debitar(Long id, BigDecimal monto);
+
+	@Modifying
+	@Query("update Cuenta c set c.saldo = c.saldo + ?2, c.version = c.version + 1 where c.id = ?1")
+	int acreditar(Long id, BigDecimal monto);
 }
@@ -0,0 +1,42 @@
+package com.gregpalacios.springtest.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gregpalacios.springtest.models.Movimiento;
+
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
+
+	List<Movimiento> findByCuentaIdAndIdLessThanOrderByIdDesc(Long cuentaId, Long antesDe, Pageable pageable);
+
+	/**
+	 * [id, cuentaId, importe] de movimientos confirmados que todavía no están en
+	 * ninguna instantánea.
+	 */
+	@Query("select m.id, m.cuentaId, m.importe from Movimiento m where m.compactado = false")
+	List<Object[]> findSinCompactar(Pageable pageable);
+
+	/**
+	 * Devuelve cuántos marcó: menos que ids.size() si otra compactación ya se
+	 * llevó alguno.
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "update movimientos set compactado = true where id in ?1 and compactado = false",
+			nativeQuery = true)
+	int marcarCompactados(Collection<Long> ids);
+
+	/**
+	 * Por banco: [bancoId, suma de importes] de un tipo de asiento. Con CREDITO es
+	 * el volumen transferido.
+	 */
+	@Query("select m.bancoId, sum(m.importe) from Movimiento m"
+			+ " where m.tipo = ?1 and m.bancoId is not null group by m.bancoId")
+	List<Object[]> importesPorBanco(Movimiento.Tipo tipo);
+}
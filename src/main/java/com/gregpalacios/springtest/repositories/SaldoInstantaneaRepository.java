@@ -0,0 +1,28 @@
+package com.gregpalacios.springtest.repositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gregpalacios.springtest.models.SaldoInstantanea;
+
+public interface SaldoInstantaneaRepository extends JpaRepository<SaldoInstantanea, Long> {
+
+	/**
+	 * Instantánea más movimientos posteriores en una sola consulta, para no
+	 * contar dos veces lo que una compactación simultánea acaba de sumar.
+	 */
+	@Query("select s.saldo + (select coalesce(sum(m.importe), 0) from Movimiento m"
+			+ " where m.cuentaId = s.cuentaId and m.compactado = false)"
+			+ " from SaldoInstantanea s where s.cuentaId = ?1")
+	BigDecimal saldoSegunLibro(Long cuentaId);
+
+	@Transactional
+	@Modifying
+	@Query("update SaldoInstantanea s set s.saldo = s.saldo + ?2, s.actualizada = ?3 where s.cuentaId = ?1")
+	int sumar(Long cuentaId, BigDecimal importe, LocalDateTime actualizada);
+}
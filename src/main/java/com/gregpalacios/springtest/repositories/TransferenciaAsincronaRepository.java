@@ -0,0 +1,35 @@
+package com.gregpalacios.springtest.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gregpalacios.springtest.models.TransferenciaAsincrona;
+
+public interface TransferenciaAsincronaRepository extends JpaRepository<TransferenciaAsincrona, String> {
+
+	/**
+	 * Bloquea las que siguen pendientes; las que ya resolvió otra instancia no
+	 * se devuelven.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select t from TransferenciaAsincrona t where t.id in ?1 and t.estado = 'PENDIENTE' order by t.creada")
+	List<TransferenciaAsincrona> reclamar(Collection<String> ids);
+
+	@Query("select t from TransferenciaAsincrona t where t.estado = 'PENDIENTE' and t.creada < ?1 order by t.creada")
+	List<TransferenciaAsincrona> findPendientesAnterioresA(LocalDateTime limite, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("delete from TransferenciaAsincrona t where t.estado <> 'PENDIENTE' and t.creada < ?1")
+	int eliminarResueltasAnterioresA(LocalDateTime limite);
+}
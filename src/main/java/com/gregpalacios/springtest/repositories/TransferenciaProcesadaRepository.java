@@ -0,0 +1,18 @@
+package com.gregpalacios.springtest.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
+
+public interface TransferenciaProcesadaRepository extends JpaRepository<TransferenciaProcesada, String> {
+
+	@Transactional
+	@Modifying
+	@Query("delete from TransferenciaProcesada t where t.creada < ?1")
+	int eliminarAnterioresA(LocalDateTime limite);
+}
@@ -0,0 +1,22 @@
+package com.gregpalacios.springtest.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.gregpalacios.springtest.models.EstadisticasBanco;
+import com.gregpalacios.springtest.models.ResumenBancos;
+
+public interface BancoService {
+
+	List<EstadisticasBanco> listar();
+
+	Optional<EstadisticasBanco> estadisticas(Long id);
+
+	ResumenBancos resumen();
+
+	/**
+	 * Recalcula los agregados desde la base; true si no coincidían con los
+	 * mantenidos en memoria (y se corrigieron).
+	 */
+	boolean conciliar();
+}
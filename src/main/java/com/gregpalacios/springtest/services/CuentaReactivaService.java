@@ -0,0 +1,44 @@
+package com.gregpalacios.springtest.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versión no bloqueante de CuentaService para la pila WebFlux. Ningún método
+ * bloquea al hilo que se suscribe.
+ */
+public interface CuentaReactivaService {
+
+	/**
+	 * Todas las cuentas por orden de id. Se leen por páginas a medida que el
+	 * suscriptor las pide, así que un cliente lento no obliga a cargar la tabla
+	 * completa en memoria.
+	 */
+	Flux<CuentaDto> findAll();
+
+	/**
+	 * Hasta {@code tamanio} cuentas con id mayor que {@code despuesDe}, por orden
+	 * de id; sin cursor, la primera página.
+	 */
+	Mono<List<CuentaDto>> findPagina(Long despuesDe, int tamanio);
+
+	/**
+	 * Vacío si la cuenta no existe.
+	 */
+	Mono<CuentaDto> findById(Long id);
+
+	Mono<Cuenta> save(Cuenta cuenta);
+
+	Mono<Void> deleteById(Long id);
+
+	Mono<BigDecimal> revisarSaldo(Long cuentaId);
+
+	Mono<Void> transferir(TransaccionDto transaccion);
+}
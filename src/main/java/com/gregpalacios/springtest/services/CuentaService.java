@@ -2,22 +2,86 @@ package com.gregpalacios.springtest.services;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
 
 public interface CuentaService {
 
 	List<Cuenta> findAll();
 
+	List<CuentaDto> findPagina(Long despuesDe, int tamanio);
+
+	void exportar(Consumer<CuentaDto> consumidor);
+
+	/**
+	 * Lanza RecursoNoEncontradoException si la cuenta no existe.
+	 */
 	Cuenta findById(Long id);
 
+	Optional<Cuenta> buscar(Long id);
+
+	Optional<CuentaDto> detalle(Long id);
+
+	/**
+	 * Cuentas de la persona, sin distinguir mayúsculas ni acentos, por orden de
+	 * id.
+	 */
+	List<Cuenta> findByPersona(String persona, int pagina, int tamanio);
+
+	/**
+	 * Cuentas cuyo titular empieza por el prefijo (sin distinguir mayúsculas ni
+	 * acentos), por orden de nombre.
+	 */
+	List<Cuenta> buscarPorPrefijo(String prefijo, int limite);
+
 	Cuenta save(Cuenta cuenta);
 
+	/**
+	 * Crea todas las cuentas (sin id) en una transacción.
+	 */
+	List<Cuenta> saveAll(List<Cuenta> cuentas);
+
 	void deleteById(Long id);
 
 	int revisarTotalTransferencias(Long bancoId);
 
+	/**
+	 * Solo el saldo: de la caché de cuentas si está habilitada, si no con una
+	 * consulta escalar. Lanza RecursoNoEncontradoException si la cuenta no existe.
+	 */
 	BigDecimal revisarSaldo(Long cuentaId);
 
 	void transferir(Long numCuentaOrigen, Long numCuentaDestino, BigDecimal monto, Long bancoId);
+
+	/**
+	 * Aplica la transferencia una sola vez por clave. Si la clave ya se usó con
+	 * la misma transferencia devuelve el registro original sin tocar las cuentas.
+	 */
+	TransferenciaProcesada transferir(String claveIdempotencia, TransaccionDto transaccion);
+
+	List<ResultadoTransferencia> transferirLote(List<TransaccionDto> transacciones);
+
+	/**
+	 * Como transferirLote, pero las transferencias salen de {@code reclamar} y los
+	 * resultados se entregan a {@code registrar}, los dos dentro de la misma
+	 * transacción que mueve el dinero. Si la transacción se repite por un
+	 * conflicto, se vuelven a llamar.
+	 */
+	List<ResultadoTransferencia> transferirLote(Supplier<List<TransaccionDto>> reclamar,
+			Consumer<List<ResultadoTransferencia>> registrar);
+
+	ModoTransferencia getModoTransferencia();
+
+	/**
+	 * Cambia la estrategia de las transferencias siguientes; las que están en
+	 * curso terminan con la que empezaron.
+	 */
+	void setModoTransferencia(ModoTransferencia modo);
 }
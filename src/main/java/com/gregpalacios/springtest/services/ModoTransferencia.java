@@ -0,0 +1,24 @@
+package com.gregpalacios.springtest.services;
+
+public enum ModoTransferencia {
+
+	/**
+	 * Lee las cuentas sin bloqueo y confía en la columna de versión; si otra
+	 * transacción las modificó antes del commit, la transferencia se reintenta.
+	 */
+	OPTIMISTA,
+
+	/**
+	 * Bloquea las cuentas con SELECT ... FOR UPDATE siempre en orden de id, de
+	 * modo que A→B y B→A concurrentes no pueden bloquearse mutuamente.
+	 */
+	PESIMISTA,
+
+	/**
+	 * Sin leer las cuentas: un UPDATE condicional descuenta el saldo solo si
+	 * alcanza y otro lo acredita. Cada UPDATE toma el bloqueo de su fila, y se
+	 * emiten en orden de id como en PESIMISTA. Los lotes (transferirLote) se
+	 * aplican como en OPTIMISTA.
+	 */
+	ATOMICA
+}
@@ -0,0 +1,21 @@
+package com.gregpalacios.springtest.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.gregpalacios.springtest.models.Movimiento;
+
+public interface MovimientoService {
+
+	/**
+	 * Movimientos de la cuenta con id menor que antesDe, del más reciente al más
+	 * antiguo. Con antesDe nulo empieza por el último.
+	 */
+	List<Movimiento> historial(Long cuentaId, Long antesDe, int tamanio);
+
+	/**
+	 * Saldo reconstruido desde el libro, o null si la cuenta no tiene
+	 * instantánea.
+	 */
+	BigDecimal saldoSegunLibro(Long cuentaId);
+}
@@ -0,0 +1,20 @@
+package com.gregpalacios.springtest.services;
+
+import com.gregpalacios.springtest.models.EstadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+public interface TransferenciaAsincronaService {
+
+	boolean isHabilitado();
+
+	/**
+	 * Encola la transferencia y devuelve su estado inicial (PENDIENTE). Lanza
+	 * RejectedExecutionException si la cola de la partición está llena.
+	 */
+	EstadoTransferencia enviar(TransaccionDto transaccion);
+
+	/**
+	 * Estado actual de la transferencia, o null si el id no existe o ya venció.
+	 */
+	EstadoTransferencia estado(String id);
+}
@@ -0,0 +1,293 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gregpalacios.springtest.models.Dinero;
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.repositories.MovimientoRepository;
+
+/**
+ * Volumen transferido por banco y totales de todas las cuentas (número y saldo)
+ * en memoria. CuentaServiceImpl les suma cada cambio al confirmar, así que
+ * leerlos no recorre ninguna tabla. Se calculan desde la base al arrancar y la
+ * conciliación periódica los vuelve a calcular para detectar desvíos.
+ * <p>
+ * El número de transferencias no está aquí: su única fuente es
+ * bancos.total_transferencias (ContadorTransferencias).
+ */
+@Component
+public class AgregadosBancos {
+
+	private static final Logger log = LoggerFactory.getLogger(AgregadosBancos.class);
+
+	private static final int INTENTOS_CARGA = 5;
+
+	private final Map<Long, LongAdder> volumenes = new ConcurrentHashMap<>();
+
+	private final LongAdder cuentas = new LongAdder();
+
+	private final LongAdder saldoCentavos = new LongAdder();
+
+	// Los cambios toman el cerrojo de lectura (muchos a la vez); reemplazar los
+	// totales toma el de escritura para no perder un cambio a medio aplicar.
+	private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+	private final AtomicLong cambios = new AtomicLong();
+
+	// Transacciones que ya empezaron a confirmar pero cuyo cambio todavía no se
+	// sumó: la base ya puede mostrarlo y la memoria aún no.
+	private final AtomicInteger pendientes = new AtomicInteger();
+
+	private final CuentaRepository cuentaRepository;
+
+	private final MovimientoRepository movimientoRepository;
+
+	private final MetricasCuentas metricas;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public AgregadosBancos(CuentaRepository cuentaRepository, MovimientoRepository movimientoRepository,
+			MetricasCuentas metricas, PlatformTransactionManager transactionManager) {
+		this.cuentaRepository = cuentaRepository;
+		this.movimientoRepository = movimientoRepository;
+		this.metricas = metricas;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	public void registrarVolumen(Long bancoId, long centavos) {
+		alConfirmar(() -> aplicar(() -> volumenes.computeIfAbsent(bancoId, id -> new LongAdder()).add(centavos)));
+	}
+
+	/**
+	 * Altas (cantidad positiva), bajas (negativa) o ajustes de saldo (cantidad
+	 * 0) de cuentas.
+	 */
+	public void registrarCuentas(long cantidad, long centavos) {
+		alConfirmar(() -> aplicar(() -> {
+			cuentas.add(cantidad);
+			saldoCentavos.add(centavos);
+		}));
+	}
+
+	public BigDecimal volumen(Long bancoId) {
+		LongAdder volumen = volumenes.get(bancoId);
+		return Dinero.aBigDecimal(volumen == null ? 0 : volumen.sum(), Dinero.ESCALA_MAXIMA);
+	}
+
+	public BigDecimal volumenTotal() {
+		long total = 0;
+		for (LongAdder volumen : volumenes.values()) {
+			total += volumen.sum();
+		}
+		return Dinero.aBigDecimal(total, Dinero.ESCALA_MAXIMA);
+	}
+
+	public long cuentas() {
+		return cuentas.sum();
+	}
+
+	public BigDecimal saldoTotal() {
+		return Dinero.aBigDecimal(saldoCentavos.sum(), Dinero.ESCALA_MAXIMA);
+	}
+
+	/**
+	 * Calcula los totales desde la base. Con las mismas precauciones que
+	 * conciliar, pero como hay que cargar algo se reintenta; si no hay calma se
+	 * carga igual y la conciliación corrige lo que quede.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void cargar() {
+		for (int intento = 1;; intento++) {
+			long antes = cambios.get();
+			Instantanea calculada = calcular();
+			cerrojo.writeLock().lock();
+			try {
+				boolean estable = estable(antes);
+				if (estable || intento == INTENTOS_CARGA) {
+					if (!estable) {
+						log.warn("Agregados de bancos cargados con cambios en curso; la conciliación los ajustará");
+					}
+					reemplazar(calculada);
+					return;
+				}
+			} finally {
+				cerrojo.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Recalcula los totales desde la base y, si no coinciden, los reemplaza. Si
+	 * algún cambio se sumó mientras se calculaba, o hay alguno confirmado en la
+	 * base que todavía no se sumó, la comparación no sería justa y se deja para
+	 * la próxima vez. Devuelve true si había diferencias.
+	 */
+	@Scheduled(fixedDelayString = "${cuentas.bancos.intervalo-conciliacion-ms:3600000}",
+			initialDelayString = "${cuentas.bancos.intervalo-conciliacion-ms:3600000}")
+	public boolean conciliar() {
+		long antes = cambios.get();
+		Instantanea calculada = calcular();
+		cerrojo.writeLock().lock();
+		try {
+			if (!estable(antes)) {
+				log.debug("Conciliación pospuesta: hubo cambios mientras se calculaba");
+				return false;
+			}
+			Instantanea actual = instantanea();
+			if (actual.equals(calculada)) {
+				return false;
+			}
+			log.warn("Agregados de bancos desviados. En memoria: {}. En la base: {}", actual, calculada);
+			metricas.registrarDiferenciaConciliacion();
+			reemplazar(calculada);
+			return true;
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Como Transacciones.alConfirmar, pero cuenta la transacción como pendiente
+	 * desde antes de confirmar hasta después de sumar el cambio.
+	 */
+	private void alConfirmar(Runnable cambio) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			cambio.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			private boolean confirmando;
+
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				pendientes.incrementAndGet();
+				confirmando = true;
+			}
+
+			@Override
+			public void afterCommit() {
+				cambio.run();
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				if (confirmando) {
+					pendientes.decrementAndGet();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Con el cerrojo de escritura tomado: true si la memoria y lo calculado desde
+	 * {@code antes} ven los mismos cambios.
+	 */
+	private boolean estable(long antes) {
+		return cambios.get() == antes && pendientes.get() == 0;
+	}
+
+	private void aplicar(Runnable cambio) {
+		cerrojo.readLock().lock();
+		try {
+			cambio.run();
+			cambios.incrementAndGet();
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+	}
+
+	/**
+	 * En una transacción de escritura a propósito: con el perfil replica una de
+	 * solo lectura iría a la réplica, que puede ir atrasada.
+	 */
+	private Instantanea calcular() {
+		return transactionTemplate.execute(status -> calcularEnTransaccion());
+	}
+
+	private Instantanea calcularEnTransaccion() {
+		Instantanea calculada = new Instantanea();
+		for (Object[] fila : movimientoRepository.importesPorBanco(Movimiento.Tipo.CREDITO)) {
+			calculada.volumenes.put((Long) fila[0], Dinero.centavos((BigDecimal) fila[1]));
+		}
+		calculada.cuentas = cuentaRepository.count();
+		BigDecimal saldo = cuentaRepository.sumarSaldos();
+		calculada.saldoCentavos = saldo == null ? 0 : Dinero.centavos(saldo);
+		return calculada;
+	}
+
+	private Instantanea instantanea() {
+		Instantanea actual = new Instantanea();
+		volumenes.forEach((id, volumen) -> {
+			if (volumen.sum() != 0) {
+				actual.volumenes.put(id, volumen.sum());
+			}
+		});
+		actual.cuentas = cuentas.sum();
+		actual.saldoCentavos = saldoCentavos.sum();
+		return actual;
+	}
+
+	private void reemplazar(Instantanea calculada) {
+		volumenes.clear();
+		calculada.volumenes.forEach((id, centavos) -> {
+			LongAdder volumen = new LongAdder();
+			volumen.add(centavos);
+			volumenes.put(id, volumen);
+		});
+		cuentas.reset();
+		cuentas.add(calculada.cuentas);
+		saldoCentavos.reset();
+		saldoCentavos.add(calculada.saldoCentavos);
+	}
+
+	private static final class Instantanea {
+
+		private final Map<Long, Long> volumenes = new HashMap<>();
+
+		private long cuentas;
+
+		private long saldoCentavos;
+
+		@Override
+		public boolean equals(Object otro) {
+			if (!(otro instanceof Instantanea)) {
+				return false;
+			}
+			Instantanea instantanea = (Instantanea) otro;
+			return cuentas == instantanea.cuentas && saldoCentavos == instantanea.saldoCentavos
+					&& volumenes.equals(instantanea.volumenes);
+		}
+
+		@Override
+		public int hashCode() {
+			return volumenes.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "volumen por banco " + volumenes + ", " + cuentas + " cuentas, saldo " + saldoCentavos + " centavos";
+		}
+	}
+
+}
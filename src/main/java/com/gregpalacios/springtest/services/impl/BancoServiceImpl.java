@@ -0,0 +1,67 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.gregpalacios.springtest.models.Banco;
+import com.gregpalacios.springtest.models.EstadisticasBanco;
+import com.gregpalacios.springtest.models.ResumenBancos;
+import com.gregpalacios.springtest.repositories.BancoRepository;
+import com.gregpalacios.springtest.services.BancoService;
+
+/**
+ * Las transferencias de cada banco son bancos.total_transferencias más lo que
+ * falta volcar; se leen con el cerrojo del volcado y sin transacción propia,
+ * como revisarTotalTransferencias. El volumen y las cuentas salen de
+ * AgregadosBancos.
+ */
+@Service
+public class BancoServiceImpl implements BancoService {
+
+	private BancoRepository bancoRepository;
+
+	private AgregadosBancos agregados;
+
+	private ContadorTransferencias contadorTransferencias;
+
+	public BancoServiceImpl(BancoRepository bancoRepository, AgregadosBancos agregados,
+			ContadorTransferencias contadorTransferencias) {
+		this.bancoRepository = bancoRepository;
+		this.agregados = agregados;
+		this.contadorTransferencias = contadorTransferencias;
+	}
+
+	@Override
+	public List<EstadisticasBanco> listar() {
+		return contadorTransferencias.leer(
+				() -> bancoRepository.findAll().stream().map(this::estadisticas).collect(Collectors.toList()));
+	}
+
+	@Override
+	public Optional<EstadisticasBanco> estadisticas(Long id) {
+		return contadorTransferencias.leer(() -> bancoRepository.findById(id).map(this::estadisticas));
+	}
+
+	@Override
+	public ResumenBancos resumen() {
+		long transferencias = contadorTransferencias
+				.leer(() -> bancoRepository.sumarTotalTransferencias() + contadorTransferencias.totalPendientes());
+		return new ResumenBancos(transferencias, agregados.volumenTotal(), agregados.cuentas(),
+				agregados.saldoTotal());
+	}
+
+	@Override
+	public boolean conciliar() {
+		return agregados.conciliar();
+	}
+
+	private EstadisticasBanco estadisticas(Banco banco) {
+		return new EstadisticasBanco(banco.getId(), banco.getNombre(),
+				banco.getTotalTransferencias() + contadorTransferencias.pendientes(banco.getId()),
+				agregados.volumen(banco.getId()));
+	}
+
+}
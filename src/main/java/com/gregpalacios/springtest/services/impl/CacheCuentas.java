@@ -0,0 +1,137 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.cache.CacheAcotada;
+import com.gregpalacios.springtest.models.Cuenta;
+
+/**
+ * Copias de cuentas leídas recientemente. Nunca se entrega la instancia
+ * guardada: las entidades son mutables y se comparten entre hilos.
+ */
+@Component
+public class CacheCuentas {
+
+	private static final int FRANJAS = 1024;
+
+	private final boolean habilitada;
+
+	private final CacheAcotada<Long, Cuenta> cache;
+
+	/**
+	 * Generación por franja de ids: se incrementa en cada escritura confirmada de
+	 * una cuenta de la franja, aunque la caché esté deshabilitada. Una lectura
+	 * que empezó antes de una escritura confirmada de su cuenta no puede guardar
+	 * lo que leyó, ni compartirlo con otras lecturas; las escrituras de cuentas
+	 * de otras franjas no la afectan.
+	 */
+	private final AtomicLongArray generaciones = new AtomicLongArray(FRANJAS);
+
+	public CacheCuentas(@Value("${cuentas.cache.habilitada:false}") boolean habilitada,
+			@Value("${cuentas.cache.tamanio-maximo:10000}") int tamanioMaximo,
+			@Value("${cuentas.cache.ttl-ms:30000}") long ttlMillis) {
+		this.habilitada = habilitada;
+		this.cache = new CacheAcotada<>(tamanioMaximo, ttlMillis);
+	}
+
+	public boolean isHabilitada() {
+		return habilitada;
+	}
+
+	public long generacion(Long id) {
+		return generaciones.get(franja(id));
+	}
+
+	public Cuenta obtener(Long id) {
+		if (!habilitada) {
+			return null;
+		}
+		Cuenta cuenta = cache.obtener(id);
+		return cuenta == null ? null : cuenta.copiar();
+	}
+
+	public void guardar(Cuenta cuenta, long generacionLeida) {
+		if (!habilitada) {
+			return;
+		}
+		synchronized (cache) {
+			if (generacion(cuenta.getId()) == generacionLeida) {
+				cache.guardar(cuenta.getId(), cuenta.copiar());
+			}
+		}
+	}
+
+	public void actualizarAlConfirmar(Cuenta cuenta) {
+		Transacciones.alConfirmar(() -> {
+			synchronized (cache) {
+				avanzar(cuenta.getId());
+				if (habilitada) {
+					cache.guardar(cuenta.getId(), cuenta.copiar());
+				}
+			}
+		});
+	}
+
+	public void invalidarAlConfirmar(Collection<Long> ids) {
+		Transacciones.alConfirmar(() -> {
+			synchronized (cache) {
+				ids.forEach(this::avanzar);
+				if (habilitada) {
+					ids.forEach(cache::eliminar);
+				}
+			}
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${cuentas.cache.ttl-ms:30000}")
+	public void purgarVencidas() {
+		if (habilitada) {
+			cache.purgarVencidas();
+		}
+	}
+
+	public void limpiar() {
+		synchronized (cache) {
+			for (int franja = 0; franja < FRANJAS; franja++) {
+				generaciones.incrementAndGet(franja);
+			}
+			cache.limpiar();
+		}
+	}
+
+	public long aciertos() {
+		return cache.aciertos();
+	}
+
+	public long fallos() {
+		return cache.fallos();
+	}
+
+	public long desalojos() {
+		return cache.desalojos();
+	}
+
+	public int tamanio() {
+		return cache.tamanio();
+	}
+
+	public int tamanioMaximo() {
+		return cache.getTamanioMaximo();
+	}
+
+	private void avanzar(Long id) {
+		if (id != null) {
+			generaciones.incrementAndGet(franja(id));
+		}
+	}
+
+	private static int franja(Long id) {
+		return Long.hashCode(id) & (FRANJAS - 1);
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.repositories.BancoRepository;
+
+/**
+ * Acumula en memoria las transferencias de cada banco y las vuelca
+ * periódicamente a bancos.total_transferencias con un UPDATE atómico, en lugar
+ * de leer y reescribir la fila del banco en cada transferencia.
+ */
+@Component
+public class ContadorTransferencias {
+
+	private static final Logger log = LoggerFactory.getLogger(ContadorTransferencias.class);
+
+	private final Map<Long, LongAdder> pendientes = new ConcurrentHashMap<>();
+
+	private final Set<Long> bancosConocidos = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * El volcado confirma el UPDATE y descuenta lo pendiente con el cerrojo de
+	 * escritura; quien suma persistido más pendiente lo hace con el de lectura,
+	 * así nunca ve la cantidad en los dos sitios ni en ninguno.
+	 */
+	private final ReadWriteLock volcado = new ReentrantReadWriteLock();
+
+	private final BancoRepository bancoRepository;
+
+	public ContadorTransferencias(BancoRepository bancoRepository) {
+		this.bancoRepository = bancoRepository;
+	}
+
+	public boolean existeBanco(Long bancoId) {
+		if (bancosConocidos.contains(bancoId)) {
+			return true;
+		}
+		if (bancoRepository.existsById(bancoId)) {
+			bancosConocidos.add(bancoId);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Suma las transferencias al banco cuando la transacción actual confirma;
+	 * si se revierte no se cuentan.
+	 */
+	public void registrar(Long bancoId, long cantidad) {
+		Transacciones.alConfirmar(() -> acumular(bancoId, cantidad));
+	}
+
+	public long pendientes(Long bancoId) {
+		LongAdder acumulado = pendientes.get(bancoId);
+		return acumulado == null ? 0 : acumulado.sum();
+	}
+
+	/**
+	 * Total del banco: lo que devuelve {@code persistido} más lo que falta
+	 * volcar. {@code persistido} no debería esperar por una conexión dentro de
+	 * una transacción ya abierta, porque el volcado necesita otra mientras
+	 * retiene el cerrojo.
+	 */
+	public long total(Long bancoId, LongSupplier persistido) {
+		return leer(() -> persistido.getAsLong() + pendientes(bancoId));
+	}
+
+	/**
+	 * Como total, para lecturas de varios bancos: dentro de {@code lectura} las
+	 * filas leídas y lo pendiente no se solapan. Las mismas precauciones con la
+	 * conexión.
+	 */
+	public <T> T leer(Supplier<T> lectura) {
+		Lock cerrojo = volcado.readLock();
+		cerrojo.lock();
+		try {
+			return lectura.get();
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	public long totalPendientes() {
+		long total = 0;
+		for (LongAdder acumulado : pendientes.values()) {
+			total += acumulado.sum();
+		}
+		return total;
+	}
+
+	@PreDestroy
+	@Scheduled(fixedDelayString = "${cuentas.transferencias.intervalo-volcado-ms:1000}")
+	public synchronized void volcar() {
+		// synchronized: el volcado programado y el de @PreDestroy pueden
+		// coincidir al apagar, y los dos escribirían el mismo delta.
+		for (Map.Entry<Long, LongAdder> entrada : pendientes.entrySet()) {
+			LongAdder acumulado = entrada.getValue();
+			long delta = acumulado.sum();
+			if (delta == 0) {
+				continue;
+			}
+			Lock escritura = volcado.writeLock();
+			escritura.lock();
+			try {
+				// Se descuenta sólo lo que se escribió: lo que llegue mientras
+				// tanto queda pendiente para el siguiente volcado.
+				if (bancoRepository.incrementarTotalTransferencias(entrada.getKey(), (int) delta) > 0) {
+					acumulado.add(-delta);
+				}
+			} catch (DataAccessException e) {
+				log.warn("No se pudo volcar el total de transferencias del banco {}", entrada.getKey(), e);
+			} finally {
+				escritura.unlock();
+			}
+		}
+	}
+
+	public void descartarPendientes() {
+		pendientes.clear();
+	}
+
+	private void acumular(Long bancoId, long cantidad) {
+		pendientes.computeIfAbsent(bancoId, id -> new LongAdder()).add(cantidad);
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.CuentaReactivaService;
+import com.gregpalacios.springtest.services.CuentaService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Adapta CuentaService a Mono/Flux. JPA sigue siendo bloqueante, así que cada
+ * llamada se ejecuta en un scheduler propio con tantos hilos como conexiones
+ * tiene el pool: los hilos de Netty nunca esperan a la base de datos y no se
+ * crean más hilos de los que pueden trabajar a la vez.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CuentaReactivaServiceImpl implements CuentaReactivaService {
+
+	private final CuentaService cuentaService;
+
+	private final Scheduler scheduler;
+
+	private final int tamanioPagina;
+
+	public CuentaReactivaServiceImpl(CuentaService cuentaService,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int conexiones,
+			@Value("${cuentas.reactivo.tamanio-pagina:500}") int tamanioPagina) {
+		this.cuentaService = cuentaService;
+		this.tamanioPagina = tamanioPagina;
+		this.scheduler = Schedulers.newBoundedElastic(conexiones, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"cuentas-jpa");
+	}
+
+	@PreDestroy
+	public void detener() {
+		scheduler.dispose();
+	}
+
+	@Override
+	public Flux<CuentaDto> findAll() {
+		// Una página por transacción corta; la siguiente solo se pide cuando el
+		// suscriptor consumió la anterior.
+		return pagina(null).expand(pagina -> pagina.size() < tamanioPagina ? Mono.empty()
+				: pagina(pagina.get(pagina.size() - 1).getId()))
+				.concatMapIterable(pagina -> pagina, 1);
+	}
+
+	private Mono<List<CuentaDto>> pagina(Long despuesDe) {
+		return findPagina(despuesDe, tamanioPagina);
+	}
+
+	@Override
+	public Mono<List<CuentaDto>> findPagina(Long despuesDe, int tamanio) {
+		return bloqueante(() -> cuentaService.findPagina(despuesDe, tamanio));
+	}
+
+	@Override
+	public Mono<CuentaDto> findById(Long id) {
+		return bloqueante(() -> cuentaService.detalle(id).orElse(null));
+	}
+
+	@Override
+	public Mono<Cuenta> save(Cuenta cuenta) {
+		return bloqueante(() -> cuentaService.save(cuenta));
+	}
+
+	@Override
+	public Mono<Void> deleteById(Long id) {
+		return bloqueante(() -> cuentaService.deleteById(id));
+	}
+
+	@Override
+	public Mono<BigDecimal> revisarSaldo(Long cuentaId) {
+		return bloqueante(() -> cuentaService.revisarSaldo(cuentaId));
+	}
+
+	@Override
+	public Mono<Void> transferir(TransaccionDto dto) {
+		return bloqueante(() -> cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(),
+				dto.getMonto(), dto.getBancoId()));
+	}
+
+	private <T> Mono<T> bloqueante(Callable<T> llamada) {
+		return Mono.fromCallable(llamada).subscribeOn(scheduler);
+	}
+
+	private Mono<Void> bloqueante(Runnable llamada) {
+		return Mono.<Void>fromRunnable(llamada).subscribeOn(scheduler);
+	}
+}
@@ -1,82 +1,650 @@
 package com.gregpalacios.springtest.services.impl;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.gregpalacios.springtest.cache.VueloUnico;
+import com.gregpalacios.springtest.exceptions.ClaveIdempotenciaEnUsoException;
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.MontoInvalidoException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
 import com.gregpalacios.springtest.models.Banco;
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.Dinero;
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
 import com.gregpalacios.springtest.repositories.BancoRepository;
 import com.gregpalacios.springtest.repositories.CuentaRepository;
 import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.ModoTransferencia;
 
 @Service
 public class CuentaServiceImpl implements CuentaService {
 
+	private static final String MONTO_INVALIDO = "Monto inválido.";
+
 	private CuentaRepository cuentaRepository;
 
 	private BancoRepository bancoRepository;
 
-	public CuentaServiceImpl(CuentaRepository cuentaRepository, BancoRepository bancoRepository) {
+	private ContadorTransferencias contadorTransferencias;
+
+	private CacheCuentas cacheCuentas;
+
+	private MetricasCuentas metricas;
+
+	private RegistroIdempotencia registroIdempotencia;
+
+	private LibroMovimientos libroMovimientos;
+
+	private IndicePersonas indicePersonas;
+
+	private AgregadosBancos agregadosBancos;
+
+	private TransactionTemplate transactionTemplate;
+
+	private TransactionTemplate transaccionLectura;
+
+	private VueloUnico<Long, Optional<Cuenta>> lecturasCuenta = new VueloUnico<>();
+
+	private VueloUnico<Long, Optional<CuentaDto>> lecturasDetalle = new VueloUnico<>();
+
+	private VueloUnico<Long, Optional<BigDecimal>> lecturasSaldo = new VueloUnico<>();
+
+	private boolean coalescerLecturas;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private volatile ModoTransferencia modo;
+
+	private int reintentos;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int tamanioLoteJdbc;
+
+	public CuentaServiceImpl(CuentaRepository cuentaRepository, BancoRepository bancoRepository,
+			ContadorTransferencias contadorTransferencias, CacheCuentas cacheCuentas, MetricasCuentas metricas,
+			RegistroIdempotencia registroIdempotencia, LibroMovimientos libroMovimientos,
+			IndicePersonas indicePersonas, AgregadosBancos agregadosBancos,
+			PlatformTransactionManager transactionManager,
+			@Value("${cuentas.transferir.modo:OPTIMISTA}") ModoTransferencia modo,
+			@Value("${cuentas.transferir.reintentos:3}") int reintentos,
+			@Value("${cuentas.lecturas.coalescer:true}") boolean coalescerLecturas) {
 		this.cuentaRepository = cuentaRepository;
 		this.bancoRepository = bancoRepository;
+		this.contadorTransferencias = contadorTransferencias;
+		this.cacheCuentas = cacheCuentas;
+		this.metricas = metricas;
+		this.registroIdempotencia = registroIdempotencia;
+		this.libroMovimientos = libroMovimientos;
+		this.indicePersonas = indicePersonas;
+		this.agregadosBancos = agregadosBancos;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transaccionLectura = new TransactionTemplate(transactionManager);
+		this.transaccionLectura.setReadOnly(true);
+		this.modo = modo;
+		this.reintentos = reintentos;
+		this.coalescerLecturas = coalescerLecturas;
+		metricas.vigilarLecturas("findById", lecturasCuenta);
+		metricas.vigilarLecturas("detalle", lecturasDetalle);
+		metricas.vigilarLecturas("revisarSaldo", lecturasSaldo);
 	}
 
 	@Override
-	@Transactional(readOnly = true)
 	public Cuenta findById(Long id) {
-		return cuentaRepository.findById(id).orElseThrow(null);
+		return buscar(id).orElseThrow(CuentaServiceImpl::cuentaInexistente);
+	}
+
+	@Override
+	public Optional<Cuenta> buscar(Long id) {
+		return metricas.medir("findById", () -> buscarCuenta(id));
+	}
+
+	@Override
+	public Optional<CuentaDto> detalle(Long id) {
+		return metricas.medir("detalle", () -> {
+			if (cacheCuentas.isHabilitada()) {
+				// La caché guarda entidades: un fallo carga la cuenta entera para
+				// que las lecturas siguientes salgan de memoria.
+				return buscarCuenta(id).map(CuentaDto::de);
+			}
+			// CuentaDto es inmutable: todos reciben la misma instancia.
+			Optional<CuentaDto> cuenta = coalescer(lecturasDetalle, id, cacheCuentas.generacion(id),
+					() -> cuentaRepository.findDtoById(id), UnaryOperator.identity());
+			if (!cuenta.isPresent()) {
+				metricas.registrarNoEncontrada();
+			}
+			return cuenta;
+		});
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public int revisarTotalTransferencias(Long bancoId) {
-		Banco banco = bancoRepository.findById(bancoId).orElseThrow(null);
-		return banco.getTotalTransferencias();
+	public List<Cuenta> findByPersona(String persona, int pagina, int tamanio) {
+		return metricas.medir("findByPersona", () -> cuentaRepository.findByPersonaNormalizadaOrderByIdAsc(
+				Cuenta.normalizarPersona(persona), PageRequest.of(pagina, tamanio)));
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	public List<Cuenta> buscarPorPrefijo(String prefijo, int limite) {
+		return metricas.medir("buscarPorPrefijo", () -> {
+			List<Long> ids = indicePersonas.buscar(prefijo, limite);
+			Map<Long, Cuenta> porId = new HashMap<>();
+			for (Cuenta cuenta : cuentaRepository.findAllById(ids)) {
+				porId.put(cuenta.getId(), cuenta);
+			}
+			// El orden es el del índice; una cuenta borrada entre las dos
+			// lecturas simplemente no aparece.
+			List<Cuenta> cuentas = new ArrayList<>(ids.size());
+			for (Long id : ids) {
+				Cuenta cuenta = porId.get(id);
+				if (cuenta != null) {
+					cuentas.add(cuenta);
+				}
+			}
+			return cuentas;
+		});
+	}
+
+	@Override
+	public int revisarTotalTransferencias(Long bancoId) {
+		// Sin transacción propia: findById toma la conexión sólo mientras lee, y
+		// no la retiene si tiene que esperar a que termine un volcado.
+		return (int) contadorTransferencias.total(bancoId, () -> bancoRepository.findById(bancoId)
+				.map(Banco::getTotalTransferencias)
+				.orElseThrow(() -> new RecursoNoEncontradoException("Banco inexistente.")));
+	}
+
+	@Override
 	public BigDecimal revisarSaldo(Long cuentaId) {
-		Cuenta cuenta = cuentaRepository.findById(cuentaId).orElseThrow(null);
-		return cuenta.getSaldo();
+		if (cacheCuentas.isHabilitada()) {
+			return buscarCuenta(cuentaId).map(Cuenta::getSaldo).orElseThrow(CuentaServiceImpl::cuentaInexistente);
+		}
+		// Sin caché, sólo el saldo: ni se hidrata la entidad ni entra al contexto de
+		// persistencia.
+		return coalescer(lecturasSaldo, cuentaId, cacheCuentas.generacion(cuentaId),
+				() -> cuentaRepository.findSaldoById(cuentaId), UnaryOperator.identity())
+				.orElseThrow(this::noEncontrada);
+	}
+
+	private Optional<Cuenta> buscarCuenta(Long id) {
+		Cuenta enCache = cacheCuentas.obtener(id);
+		if (enCache != null) {
+			return Optional.of(enCache);
+		}
+		long generacion = cacheCuentas.generacion(id);
+		// Los que esperan reciben copias: la entidad leída pertenece al contexto
+		// de persistencia del que consultó.
+		Optional<Cuenta> cuenta = coalescer(lecturasCuenta, id, generacion, () -> cargarCuenta(id, generacion),
+				leida -> leida.map(Cuenta::copiar));
+		if (!cuenta.isPresent()) {
+			metricas.registrarNoEncontrada();
+		}
+		return cuenta;
+	}
+
+	/**
+	 * Comparte la lectura con las consultas concurrentes del mismo id. Sólo quien
+	 * carga abre la transacción de solo lectura; los demás esperan sin conexión.
+	 * Dentro de una transacción del que llama no se coalesce: ya tiene conexión y
+	 * tiene que ver sus propios cambios.
+	 */
+	private <T> T coalescer(VueloUnico<Long, T> vuelo, Long id, long generacion, Supplier<T> carga,
+			UnaryOperator<T> copia) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return carga.get();
+		}
+		Supplier<T> enTransaccion = () -> transaccionLectura.execute(status -> carga.get());
+		if (!coalescerLecturas) {
+			return enTransaccion.get();
+		}
+		return vuelo.obtener(id, generacion, enTransaccion, copia);
+	}
+
+	private Optional<Cuenta> cargarCuenta(Long id, long generacion) {
+		Optional<Cuenta> cuenta = cuentaRepository.findById(id);
+		cuenta.ifPresent(leida -> cacheCuentas.guardar(leida, generacion));
+		return cuenta;
 	}
 
 	@Override
-	@Transactional()
 	public void transferir(Long numCuentaOrigen, Long numCuentaDestino, BigDecimal monto, Long bancoId) {
-		Cuenta cuentaOrigen = cuentaRepository.findById(numCuentaOrigen).orElseThrow(null);
+		transferir(numCuentaOrigen, numCuentaDestino, montoValido(monto), bancoId, null);
+	}
+
+	@Override
+	public TransferenciaProcesada transferir(String claveIdempotencia, TransaccionDto transaccion) {
+		TransferenciaProcesada previa = registroIdempotencia.recordada(claveIdempotencia);
+		if (previa != null) {
+			return repetida(previa, transaccion);
+		}
+
+		// Milisegundos: la misma precisión con la que vuelve de la tabla.
+		TransferenciaProcesada procesada = new TransferenciaProcesada(claveIdempotencia, transaccion,
+				LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+		try {
+			// La clave se inserta antes de tocar las cuentas: un duplicado falla
+			// en la primera sentencia y revierte la transacción sin más trabajo.
+			transferir(transaccion.getCuentaOrigenId(), transaccion.getCuentaDestinoId(),
+					montoValido(transaccion.getMonto()), transaccion.getBancoId(),
+					() -> registroIdempotencia.registrar(procesada));
+			return procesada;
+		} catch (DataIntegrityViolationException e) {
+			TransferenciaProcesada guardada = registroIdempotencia.guardada(claveIdempotencia).orElseThrow(() -> e);
+			return repetida(guardada, transaccion);
+		}
+	}
+
+	private TransferenciaProcesada repetida(TransferenciaProcesada procesada, TransaccionDto transaccion) {
+		if (!procesada.corresponde(transaccion)) {
+			throw new ClaveIdempotenciaEnUsoException("La clave de idempotencia ya se usó con otra transferencia.");
+		}
+		metricas.registrarRepeticion();
+		return procesada;
+	}
+
+	private void transferir(Long numCuentaOrigen, Long numCuentaDestino, Dinero importe, Long bancoId,
+			Runnable antesDeTransferir) {
+		metricas.medir("transferir", () -> {
+			ModoTransferencia modoActual = modo;
+			try {
+				ejecutarTransaccion(modoActual, () -> {
+					if (antesDeTransferir != null) {
+						antesDeTransferir.run();
+					}
+					cacheCuentas.invalidarAlConfirmar(Arrays.asList(numCuentaOrigen, numCuentaDestino));
+					if (modoActual == ModoTransferencia.PESIMISTA) {
+						transferirConBloqueo(numCuentaOrigen, numCuentaDestino, importe, bancoId);
+					} else if (modoActual == ModoTransferencia.ATOMICA) {
+						transferirAtomica(numCuentaOrigen, numCuentaDestino, importe, bancoId);
+					} else {
+						transferirSinBloqueo(numCuentaOrigen, numCuentaDestino, importe, bancoId);
+					}
+					return null;
+				});
+			} catch (DineroInsuficienteException e) {
+				metricas.registrarDineroInsuficiente();
+				throw e;
+			}
+		});
+	}
+
+	private void transferirSinBloqueo(Long numCuentaOrigen, Long numCuentaDestino, Dinero monto, Long bancoId) {
+		Cuenta cuentaOrigen = encontrada(cuentaRepository.findById(numCuentaOrigen));
+		cuentaOrigen.debito(monto);
+		cuentaRepository.save(cuentaOrigen);
+
+		Cuenta cuentaDestino = encontrada(cuentaRepository.findById(numCuentaDestino));
+		cuentaDestino.credito(monto);
+		cuentaRepository.save(cuentaDestino);
+
+		registrarMovimientos(numCuentaOrigen, numCuentaDestino, monto, bancoId);
+		incrementarTotalTransferencias(bancoId, monto);
+	}
+
+	private void transferirConBloqueo(Long numCuentaOrigen, Long numCuentaDestino, Dinero monto, Long bancoId) {
+		// Siempre se bloquea primero el id menor para que dos transferencias
+		// cruzadas esperen en el mismo orden en lugar de bloquearse mutuamente.
+		Long primerId = numCuentaOrigen.compareTo(numCuentaDestino) <= 0 ? numCuentaOrigen : numCuentaDestino;
+		Long segundoId = primerId.equals(numCuentaOrigen) ? numCuentaDestino : numCuentaOrigen;
+
+		Cuenta primera = encontrada(cuentaRepository.findByIdForUpdate(primerId));
+		Cuenta segunda = primerId.equals(segundoId) ? primera
+				: encontrada(cuentaRepository.findByIdForUpdate(segundoId));
+
+		Cuenta cuentaOrigen = primera.getId().equals(numCuentaOrigen) ? primera : segunda;
+		Cuenta cuentaDestino = cuentaOrigen == primera ? segunda : primera;
+
 		cuentaOrigen.debito(monto);
 		cuentaRepository.save(cuentaOrigen);
 
-		Cuenta cuentaDestino = cuentaRepository.findById(numCuentaDestino).orElseThrow(null);
 		cuentaDestino.credito(monto);
 		cuentaRepository.save(cuentaDestino);
 
-		Banco banco = bancoRepository.findById(bancoId).orElseThrow(null);
-		int totalTransferencias = banco.getTotalTransferencias();
-		banco.setTotalTransferencias(++totalTransferencias);
-		bancoRepository.save(banco);
+		registrarMovimientos(numCuentaOrigen, numCuentaDestino, monto, bancoId);
+		incrementarTotalTransferencias(bancoId, monto);
+	}
+
+	private void transferirAtomica(Long numCuentaOrigen, Long numCuentaDestino, Dinero monto, Long bancoId) {
+		BigDecimal importe = monto.aBigDecimal();
+		// Mismo orden de bloqueo que transferirConBloqueo. Si el débito falla
+		// después de acreditar, la excepción revierte el crédito.
+		if (numCuentaOrigen.compareTo(numCuentaDestino) <= 0) {
+			debitar(numCuentaOrigen, importe);
+			acreditar(numCuentaDestino, importe);
+		} else {
+			acreditar(numCuentaDestino, importe);
+			debitar(numCuentaOrigen, importe);
+		}
+
+		registrarMovimientos(numCuentaOrigen, numCuentaDestino, monto, bancoId);
+		incrementarTotalTransferencias(bancoId, monto);
+	}
+
+	private void debitar(Long id, BigDecimal importe) {
+		if (cuentaRepository.debitar(id, importe) == 0) {
+			// Solo en el camino de error se distingue cuenta inexistente de
+			// fondos insuficientes.
+			if (!cuentaRepository.existsById(id)) {
+				throw noEncontrada();
+			}
+			throw new DineroInsuficienteException("Dinero insuficiente en la cuenta.");
+		}
+	}
+
+	private void acreditar(Long id, BigDecimal importe) {
+		if (cuentaRepository.acreditar(id, importe) == 0) {
+			throw noEncontrada();
+		}
+	}
+
+	private void registrarMovimientos(Long numCuentaOrigen, Long numCuentaDestino, Dinero monto, Long bancoId) {
+		List<Movimiento> asientos = new ArrayList<>(2);
+		libroMovimientos.agregarTransferencia(asientos, numCuentaOrigen, numCuentaDestino, monto, bancoId,
+				LocalDateTime.now());
+		libroMovimientos.registrar(asientos);
+	}
+
+	private void incrementarTotalTransferencias(Long bancoId, Dinero monto) {
+		if (!contadorTransferencias.existeBanco(bancoId)) {
+			throw new RecursoNoEncontradoException("Banco inexistente.");
+		}
+		contadorTransferencias.registrar(bancoId, 1);
+		agregadosBancos.registrarVolumen(bancoId, monto.getCentavos());
+	}
+
+	@Override
+	public List<ResultadoTransferencia> transferirLote(List<TransaccionDto> transacciones) {
+		return transferirLote(() -> transacciones, resultados -> {
+		});
+	}
+
+	@Override
+	public List<ResultadoTransferencia> transferirLote(Supplier<List<TransaccionDto>> reclamar,
+			Consumer<List<ResultadoTransferencia>> registrar) {
+		ModoTransferencia modoActual = modo;
+		return metricas.medir("transferirLote", () -> ejecutarTransaccion(modoActual, () -> {
+			List<ResultadoTransferencia> resultados = aplicarLote(reclamar.get(), modoActual);
+			registrar.accept(resultados);
+			return resultados;
+		}));
+	}
+
+	private List<ResultadoTransferencia> aplicarLote(List<TransaccionDto> transacciones, ModoTransferencia modo) {
+		if (transacciones.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Set<Long> cuentaIds = new HashSet<>();
+		Set<Long> bancoIds = new HashSet<>();
+		for (TransaccionDto dto : transacciones) {
+			agregarSiNoEsNulo(cuentaIds, dto.getCuentaOrigenId());
+			agregarSiNoEsNulo(cuentaIds, dto.getCuentaDestinoId());
+			agregarSiNoEsNulo(bancoIds, dto.getBancoId());
+		}
+
+		// Una sola consulta de cuentas; los cambios se aplican en memoria y se
+		// escriben al final en lotes JDBC (hibernate.jdbc.batch_size).
+		Map<Long, Cuenta> cuentas = new HashMap<>();
+		Iterable<Cuenta> encontradas = modo == ModoTransferencia.PESIMISTA
+				? cuentaRepository.findAllByIdForUpdate(cuentaIds)
+				: cuentaRepository.findAllById(cuentaIds);
+		for (Cuenta cuenta : encontradas) {
+			cuentas.put(cuenta.getId(), cuenta);
+		}
+		Map<Long, Integer> transferenciasPorBanco = new HashMap<>();
+		Map<Long, Long> volumenPorBanco = new HashMap<>();
+		for (Long bancoId : bancoIds) {
+			if (contadorTransferencias.existeBanco(bancoId)) {
+				transferenciasPorBanco.put(bancoId, 0);
+			}
+		}
+
+		List<ResultadoTransferencia> resultados = new ArrayList<>(transacciones.size());
+		List<Movimiento> asientos = new ArrayList<>(transacciones.size() * 2);
+		LocalDateTime fecha = LocalDateTime.now();
+		for (int i = 0; i < transacciones.size(); i++) {
+			TransaccionDto dto = transacciones.get(i);
+			Cuenta cuentaOrigen = cuentas.get(dto.getCuentaOrigenId());
+			Cuenta cuentaDestino = cuentas.get(dto.getCuentaDestinoId());
+			Integer transferenciasBanco = transferenciasPorBanco.get(dto.getBancoId());
+
+			if (cuentaOrigen == null || cuentaDestino == null || transferenciasBanco == null) {
+				resultados.add(ResultadoTransferencia.error(i, dto, "Cuenta o banco inexistente."));
+				continue;
+			}
+			Dinero monto = importe(dto.getMonto());
+			if (monto == null || monto.signum() <= 0) {
+				resultados.add(ResultadoTransferencia.error(i, dto, MONTO_INVALIDO));
+				continue;
+			}
+
+			try {
+				cuentaOrigen.debito(monto);
+			} catch (DineroInsuficienteException e) {
+				metricas.registrarDineroInsuficiente();
+				resultados.add(ResultadoTransferencia.error(i, dto, e.getMessage()));
+				continue;
+			}
+			cuentaDestino.credito(monto);
+			libroMovimientos.agregarTransferencia(asientos, dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), monto,
+					dto.getBancoId(), fecha);
+			transferenciasPorBanco.put(dto.getBancoId(), transferenciasBanco + 1);
+			volumenPorBanco.merge(dto.getBancoId(), monto.getCentavos(), Long::sum);
+
+			resultados.add(ResultadoTransferencia.ok(i, dto));
+		}
+
+		libroMovimientos.registrar(asientos);
+		cuentaRepository.saveAll(cuentas.values());
+		cacheCuentas.invalidarAlConfirmar(cuentas.keySet());
+		transferenciasPorBanco.forEach((bancoId, total) -> {
+			if (total > 0) {
+				contadorTransferencias.registrar(bancoId, total);
+				agregadosBancos.registrarVolumen(bancoId, volumenPorBanco.get(bancoId));
+			}
+		});
+
+		return resultados;
+	}
+
+	private Cuenta encontrada(Optional<Cuenta> cuenta) {
+		if (!cuenta.isPresent()) {
+			metricas.registrarNoEncontrada();
+		}
+		return cuenta.orElseThrow(CuentaServiceImpl::cuentaInexistente);
+	}
+
+	private RecursoNoEncontradoException noEncontrada() {
+		metricas.registrarNoEncontrada();
+		return cuentaInexistente();
+	}
+
+	private static RecursoNoEncontradoException cuentaInexistente() {
+		return new RecursoNoEncontradoException("Cuenta inexistente.");
+	}
+
+	private static long centavos(BigDecimal saldo) {
+		return saldo == null ? 0 : Dinero.centavos(saldo);
+	}
+
+	/**
+	 * Para las transferencias sueltas: un monto nulo o con fracciones de centavo
+	 * se rechaza con el mismo mensaje que en los lotes, no como error interno.
+	 */
+	private static Dinero montoValido(BigDecimal monto) {
+		Dinero importe = importe(monto);
+		if (importe == null) {
+			throw new MontoInvalidoException(MONTO_INVALIDO);
+		}
+		return importe;
+	}
+
+	private static Dinero importe(BigDecimal monto) {
+		if (monto == null) {
+			return null;
+		}
+		try {
+			return Dinero.de(monto);
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private <T> T ejecutarTransaccion(ModoTransferencia modo, Supplier<T> operacion) {
+		int intento = 0;
+		while (true) {
+			try {
+				return transactionTemplate.execute(status -> operacion.get());
+			} catch (ConcurrencyFailureException e) {
+				// Conflicto de versión (modo optimista) o espera de bloqueo agotada:
+				// la transacción ya se revirtió, así que se puede repetir completa.
+				boolean agotado = ++intento > reintentos;
+				metricas.registrarReintento(modo, agotado);
+				if (agotado) {
+					throw e;
+				}
+				esperarAntesDeReintentar(intento);
+			}
+		}
+	}
+
+	@Override
+	public ModoTransferencia getModoTransferencia() {
+		return modo;
+	}
+
+	@Override
+	public void setModoTransferencia(ModoTransferencia modo) {
+		this.modo = Objects.requireNonNull(modo);
+	}
+
+	private static void esperarAntesDeReintentar(int intento) {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextInt(1, 1 + (5 << intento)));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void agregarSiNoEsNulo(Set<Long> ids, Long id) {
+		if (id != null) {
+			ids.add(id);
+		}
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public List<Cuenta> findAll() {
-		return cuentaRepository.findAll();
+		return metricas.medir("findAll", () -> cuentaRepository.findAll());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<CuentaDto> findPagina(Long despuesDe, int tamanio) {
+		return cuentaRepository.findDtosDespuesDe(despuesDe == null ? 0L : despuesDe, PageRequest.of(0, tamanio));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportar(Consumer<CuentaDto> consumidor) {
+		// Los DTO no entran al contexto de persistencia, así que la memoria no
+		// crece con el tamaño de la tabla.
+		try (Stream<CuentaDto> cuentas = cuentaRepository.streamDtos()) {
+			cuentas.forEach(consumidor);
+		}
 	}
 
 	@Override
 	@Transactional()
 	public Cuenta save(Cuenta cuenta) {
-		return cuentaRepository.save(cuenta);
+		// Un cambio de saldo fuera de una transferencia también queda en el libro.
+		BigDecimal saldoAnterior = cuenta.getId() == null ? null
+				: cuentaRepository.findById(cuenta.getId()).map(Cuenta::getSaldo).orElse(null);
+		Cuenta guardada = metricas.medir("save", () -> cuentaRepository.save(cuenta));
+		if (guardada.getId() != null) {
+			if (saldoAnterior == null) {
+				libroMovimientos.abrirCuenta(guardada);
+				agregadosBancos.registrarCuentas(1, centavos(guardada.getSaldo()));
+			} else if (guardada.getSaldo().compareTo(saldoAnterior) != 0) {
+				libroMovimientos.ajustar(guardada.getId(), guardada.getSaldo().subtract(saldoAnterior));
+				agregadosBancos.registrarCuentas(0, centavos(guardada.getSaldo()) - centavos(saldoAnterior));
+			}
+		}
+		cacheCuentas.actualizarAlConfirmar(guardada);
+		indicePersonas.actualizarAlConfirmar(Collections.singletonList(guardada));
+		return guardada;
+	}
+
+	@Override
+	@Transactional()
+	public List<Cuenta> saveAll(List<Cuenta> cuentas) {
+		return metricas.medir("saveAll", () -> {
+			// Con ids de secuencia los INSERT van en lotes JDBC; se vacía el
+			// contexto de persistencia cada lote para que la memoria no crezca
+			// con el tamaño de la carga.
+			long saldoCentavos = 0;
+			for (int i = 0; i < cuentas.size(); i++) {
+				Cuenta cuenta = cuentas.get(i);
+				entityManager.persist(cuenta);
+				libroMovimientos.abrirCuenta(cuenta);
+				saldoCentavos += centavos(cuenta.getSaldo());
+				if ((i + 1) % tamanioLoteJdbc == 0) {
+					entityManager.flush();
+					entityManager.clear();
+				}
+			}
+			// Las cuentas nuevas no están en caché, pero una lectura en curso pudo
+			// haberlas buscado antes de que existieran.
+			cacheCuentas.invalidarAlConfirmar(cuentas.stream().map(Cuenta::getId).collect(Collectors.toList()));
+			indicePersonas.actualizarAlConfirmar(cuentas);
+			agregadosBancos.registrarCuentas(cuentas.size(), saldoCentavos);
+			return cuentas;
+		});
 	}
 
 	@Override
 	@Transactional()
 	public void deleteById(Long id) {
-		cuentaRepository.deleteById(id);
+		Cuenta borrada = cuentaRepository.findById(id).orElseThrow(this::noEncontrada);
+		cuentaRepository.delete(borrada);
+		agregadosBancos.registrarCuentas(-1, -centavos(borrada.getSaldo()));
+		cacheCuentas.invalidarAlConfirmar(Collections.singletonList(id));
+		indicePersonas.eliminarAlConfirmar(id);
 	}
 
 }
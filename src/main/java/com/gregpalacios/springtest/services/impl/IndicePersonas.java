@@ -0,0 +1,141 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+
+/**
+ * Nombres normalizados ordenados, para buscar por prefijo sin ir a la base de
+ * datos. Se carga al arrancar y CuentaServiceImpl lo actualiza cuando confirma
+ * un alta, un cambio o una baja.
+ */
+@Component
+public class IndicePersonas {
+
+	private static final int TAMANIO_CARGA = 1000;
+
+	private final CuentaRepository cuentaRepository;
+
+	private final NavigableSet<Entrada> entradas = new ConcurrentSkipListSet<>();
+
+	private final Map<Long, String> porId = new ConcurrentHashMap<>();
+
+	public IndicePersonas(CuentaRepository cuentaRepository) {
+		this.cuentaRepository = cuentaRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void cargar() {
+		Long despuesDe = 0L;
+		List<Object[]> pagina;
+		do {
+			pagina = cuentaRepository.findPersonasDespuesDe(despuesDe, PageRequest.of(0, TAMANIO_CARGA));
+			for (Object[] fila : pagina) {
+				despuesDe = (Long) fila[0];
+				poner(despuesDe, (String) fila[1]);
+			}
+		} while (pagina.size() == TAMANIO_CARGA);
+	}
+
+	public int tamanio() {
+		return porId.size();
+	}
+
+	/**
+	 * Ids de las cuentas cuyo nombre normalizado empieza por el prefijo
+	 * (normalizado aquí), en orden de nombre y luego de id.
+	 */
+	public List<Long> buscar(String prefijo, int limite) {
+		String normalizado = Cuenta.normalizarPersona(prefijo);
+		List<Long> ids = new ArrayList<>(Math.min(limite, 64));
+		if (normalizado == null || normalizado.isEmpty()) {
+			return ids;
+		}
+		for (Entrada entrada : entradas.tailSet(new Entrada(normalizado, Long.MIN_VALUE))) {
+			if (ids.size() >= limite || !entrada.nombre.startsWith(normalizado)) {
+				break;
+			}
+			ids.add(entrada.id);
+		}
+		return ids;
+	}
+
+	public void actualizarAlConfirmar(Collection<Cuenta> cuentas) {
+		// Se copian id y nombre ahora: las entidades pueden cambiar antes de que
+		// la transacción confirme.
+		Long[] ids = new Long[cuentas.size()];
+		String[] nombres = new String[cuentas.size()];
+		int i = 0;
+		for (Cuenta cuenta : cuentas) {
+			ids[i] = cuenta.getId();
+			nombres[i++] = Cuenta.normalizarPersona(cuenta.getPersona());
+		}
+		Transacciones.alConfirmar(() -> {
+			for (int j = 0; j < ids.length; j++) {
+				poner(ids[j], nombres[j]);
+			}
+		});
+	}
+
+	public void eliminarAlConfirmar(Long id) {
+		Transacciones.alConfirmar(() -> quitar(id));
+	}
+
+	private synchronized void poner(Long id, String nombre) {
+		if (id == null) {
+			return;
+		}
+		quitar(id);
+		if (nombre != null) {
+			porId.put(id, nombre);
+			entradas.add(new Entrada(nombre, id));
+		}
+	}
+
+	private synchronized void quitar(Long id) {
+		String anterior = porId.remove(id);
+		if (anterior != null) {
+			entradas.remove(new Entrada(anterior, id));
+		}
+	}
+
+	private static final class Entrada implements Comparable<Entrada> {
+
+		private final String nombre;
+
+		private final long id;
+
+		Entrada(String nombre, long id) {
+			this.nombre = nombre;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Entrada otra) {
+			int c = nombre.compareTo(otra.nombre);
+			return c != 0 ? c : Long.compare(id, otra.id);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Entrada && compareTo((Entrada) o) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return nombre.hashCode() * 31 + Long.hashCode(id);
+		}
+	}
+}
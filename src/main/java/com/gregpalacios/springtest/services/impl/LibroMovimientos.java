@@ -0,0 +1,122 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.Dinero;
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.models.SaldoInstantanea;
+import com.gregpalacios.springtest.repositories.MovimientoRepository;
+import com.gregpalacios.springtest.repositories.SaldoInstantaneaRepository;
+
+/**
+ * Escribe el libro de movimientos dentro de la transacción que cambia los
+ * saldos y adelanta las instantáneas de saldo en segundo plano.
+ */
+@Component
+public class LibroMovimientos {
+
+	private final MovimientoRepository movimientoRepository;
+
+	private final SaldoInstantaneaRepository saldoInstantaneaRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int tamanioLoteCompactacion;
+
+	public LibroMovimientos(MovimientoRepository movimientoRepository,
+			SaldoInstantaneaRepository saldoInstantaneaRepository, PlatformTransactionManager transactionManager,
+			@Value("${cuentas.movimientos.tamanio-lote-compactacion:1000}") int tamanioLoteCompactacion) {
+		this.movimientoRepository = movimientoRepository;
+		this.saldoInstantaneaRepository = saldoInstantaneaRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.tamanioLoteCompactacion = tamanioLoteCompactacion;
+	}
+
+	public void agregarTransferencia(List<Movimiento> asientos, Long origenId, Long destinoId, Dinero importe,
+			Long bancoId, LocalDateTime fecha) {
+		asientos.add(new Movimiento(origenId, Movimiento.Tipo.DEBITO, Dinero.aBigDecimal(-importe.getCentavos(), 2),
+				destinoId, bancoId, fecha));
+		asientos.add(new Movimiento(destinoId, Movimiento.Tipo.CREDITO, Dinero.aBigDecimal(importe.getCentavos(), 2),
+				origenId, bancoId, fecha));
+	}
+
+	/**
+	 * Los INSERT se envían en lotes JDBC al confirmar (los ids salen de una
+	 * secuencia, no de IDENTITY).
+	 */
+	public void registrar(List<Movimiento> asientos) {
+		movimientoRepository.saveAll(asientos);
+	}
+
+	public void abrirCuenta(Cuenta cuenta) {
+		BigDecimal saldo = cuenta.getSaldo() == null ? BigDecimal.ZERO : cuenta.getSaldo();
+		saldoInstantaneaRepository.save(new SaldoInstantanea(cuenta.getId(), saldo, LocalDateTime.now()));
+	}
+
+	public void ajustar(Long cuentaId, BigDecimal diferencia) {
+		movimientoRepository.save(
+				new Movimiento(cuentaId, Movimiento.Tipo.AJUSTE, diferencia, null, null, LocalDateTime.now()));
+	}
+
+	/**
+	 * Pasa a las instantáneas los movimientos confirmados que aún no están en
+	 * ninguna, por lotes de tamanio-lote-compactacion. Cada lote suma y marca
+	 * exactamente las filas que leyó, en una sola transacción; un movimiento que
+	 * confirma después, con cualquier id, queda para la siguiente pasada.
+	 */
+	@Scheduled(fixedDelayString = "${cuentas.movimientos.intervalo-compactacion-ms:60000}")
+	public int compactar() {
+		int total = 0;
+		int compactados;
+		do {
+			compactados = transactionTemplate.execute(status -> {
+				int marcados = compactarLote();
+				if (marcados < 0) {
+					// Otra compactación se llevó parte del lote: se deshace y se
+					// vuelve a intentar en la próxima pasada.
+					status.setRollbackOnly();
+					return 0;
+				}
+				return marcados;
+			});
+			total += compactados;
+		} while (compactados == tamanioLoteCompactacion);
+		return total;
+	}
+
+	private int compactarLote() {
+		List<Object[]> pendientes = movimientoRepository
+				.findSinCompactar(PageRequest.of(0, tamanioLoteCompactacion));
+		if (pendientes.isEmpty()) {
+			return 0;
+		}
+		List<Long> ids = new ArrayList<>(pendientes.size());
+		// Ordenado por cuenta para que dos compactaciones bloqueen las
+		// instantáneas en el mismo orden.
+		Map<Long, BigDecimal> porCuenta = new TreeMap<>();
+		for (Object[] fila : pendientes) {
+			ids.add((Long) fila[0]);
+			porCuenta.merge((Long) fila[1], (BigDecimal) fila[2], BigDecimal::add);
+		}
+		if (movimientoRepository.marcarCompactados(ids) != ids.size()) {
+			return -1;
+		}
+		LocalDateTime ahora = LocalDateTime.now();
+		porCuenta.forEach((cuentaId, importe) -> saldoInstantaneaRepository.sumar(cuentaId, importe, ahora));
+		return ids.size();
+	}
+
+}
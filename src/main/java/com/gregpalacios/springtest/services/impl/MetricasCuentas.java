@@ -0,0 +1,137 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.cache.VueloUnico;
+import com.gregpalacios.springtest.services.ModoTransferencia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas del servicio de cuentas. Los tiempos llevan histograma para poder
+ * calcular percentiles en Prometheus; el pool de conexiones (hikaricp.*) lo
+ * publica Spring Boot.
+ */
+@Component
+public class MetricasCuentas {
+
+	private final MeterRegistry registro;
+
+	private final Counter dineroInsuficiente;
+
+	private final Counter noEncontradas;
+
+	private final Counter repeticiones;
+
+	private final Counter diferenciasConciliacion;
+
+	/**
+	 * Los medidores se registran una vez: construir el id y buscarlo en el
+	 * registro en cada llamada es un costo fijo por petición.
+	 */
+	private final Map<String, Timer> temporizadores = new ConcurrentHashMap<>();
+
+	private final Map<ModoTransferencia, Counter> reintentos = new EnumMap<>(ModoTransferencia.class);
+
+	private final Map<ModoTransferencia, Counter> reintentosAgotados = new EnumMap<>(ModoTransferencia.class);
+
+	public MetricasCuentas(MeterRegistry registro, CacheCuentas cacheCuentas,
+			ContadorTransferencias contadorTransferencias) {
+		this.registro = registro;
+		this.dineroInsuficiente = Counter.builder("cuentas.dinero.insuficiente")
+				.description("Débitos rechazados por saldo insuficiente").register(registro);
+		this.noEncontradas = Counter.builder("cuentas.no.encontradas")
+				.description("Búsquedas de cuentas inexistentes").register(registro);
+		this.repeticiones = Counter.builder("cuentas.transferir.repetidas")
+				.description("Transferencias con clave de idempotencia ya usada").register(registro);
+		this.diferenciasConciliacion = Counter.builder("bancos.conciliacion.diferencias")
+				.description("Conciliaciones en que los agregados no coincidían con la base").register(registro);
+		for (ModoTransferencia modo : ModoTransferencia.values()) {
+			reintentos.put(modo, contadorReintentos(modo, false));
+			reintentosAgotados.put(modo, contadorReintentos(modo, true));
+		}
+
+		Gauge.builder("cache.size", cacheCuentas, CacheCuentas::tamanio).tag("cache", "cuentas")
+				.register(registro);
+		FunctionCounter.builder("cache.gets", cacheCuentas, CacheCuentas::aciertos).tag("cache", "cuentas")
+				.tag("result", "hit").register(registro);
+		FunctionCounter.builder("cache.gets", cacheCuentas, CacheCuentas::fallos).tag("cache", "cuentas")
+				.tag("result", "miss").register(registro);
+		FunctionCounter.builder("cache.evictions", cacheCuentas, CacheCuentas::desalojos).tag("cache", "cuentas")
+				.register(registro);
+		Gauge.builder("cuentas.transferencias.pendientes", contadorTransferencias,
+				ContadorTransferencias::totalPendientes)
+				.description("Transferencias confirmadas aún no volcadas a la tabla bancos").register(registro);
+	}
+
+	public <T> T medir(String operacion, Supplier<T> accion) {
+		return temporizador(operacion).record(accion);
+	}
+
+	public void medir(String operacion, Runnable accion) {
+		temporizador(operacion).record(accion);
+	}
+
+	public void registrarDineroInsuficiente() {
+		dineroInsuficiente.increment();
+	}
+
+	public void registrarNoEncontrada() {
+		noEncontradas.increment();
+	}
+
+	public void registrarRepeticion() {
+		repeticiones.increment();
+	}
+
+	public void registrarDiferenciaConciliacion() {
+		diferenciasConciliacion.increment();
+	}
+
+	public void registrarReintento(ModoTransferencia modo, boolean agotado) {
+		(agotado ? reintentosAgotados : reintentos).get(modo).increment();
+	}
+
+	public void vigilarCola(int particion, Collection<?> cola) {
+		Gauge.builder("cuentas.motor.cola", cola, Collection::size).tag("particion", String.valueOf(particion))
+				.description("Transferencias asíncronas esperando en la partición").register(registro);
+	}
+
+	public void vigilarLecturas(String operacion, VueloUnico<?, ?> lecturas) {
+		FunctionCounter.builder("cuentas.lecturas", lecturas, VueloUnico::cargas).tag("operacion", operacion)
+				.tag("resultado", "consulta").description("Lecturas de una cuenta que consultaron la base")
+				.register(registro);
+		FunctionCounter.builder("cuentas.lecturas", lecturas, VueloUnico::coalescidas).tag("operacion", operacion)
+				.tag("resultado", "coalescida").description("Lecturas de una cuenta servidas por una consulta en curso")
+				.register(registro);
+		Gauge.builder("cuentas.lecturas.coalescidas.proporcion", lecturas, VueloUnico::proporcionCoalescidas)
+				.tag("operacion", operacion).description("Proporción de lecturas coalescidas desde el arranque")
+				.register(registro);
+	}
+
+	private Timer temporizador(String operacion) {
+		Timer temporizador = temporizadores.get(operacion);
+		if (temporizador == null) {
+			temporizador = temporizadores.computeIfAbsent(operacion, op -> Timer.builder("cuentas.operacion")
+					.tag("operacion", op).publishPercentileHistogram().register(registro));
+		}
+		return temporizador;
+	}
+
+	private Counter contadorReintentos(ModoTransferencia modo, boolean agotado) {
+		return Counter.builder("cuentas.transferir.reintentos")
+				.description("Transacciones repetidas por conflicto de versión o bloqueo")
+				.tag("modo", modo.name()).tag("agotado", String.valueOf(agotado)).register(registro);
+	}
+
+}
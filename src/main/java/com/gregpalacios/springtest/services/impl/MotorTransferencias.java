@@ -0,0 +1,258 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.cache.CacheAcotada;
+import com.gregpalacios.springtest.models.EstadoTransferencia;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaAsincrona;
+import com.gregpalacios.springtest.repositories.TransferenciaAsincronaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.TransferenciaAsincronaService;
+
+/**
+ * Aplica transferencias fuera del hilo de la petición. Cada cuenta de origen
+ * pertenece a una partición, y cada partición tiene un único hilo escritor con
+ * su cola de tamaño fijo: los débitos de una misma cuenta nunca compiten entre
+ * sí. El hilo toma todo lo que haya en la cola (hasta tamanio-lote) y lo
+ * confirma en una sola transacción con transferirLote.
+ * <p>
+ * La cola sólo lleva ids: cada transferencia se guarda como PENDIENTE en
+ * transferencias_asincronas antes de responder, y el hilo escritor la reclama
+ * de la tabla en la misma transacción que mueve el dinero. Lo que quede en la
+ * cola al caer o apagar la instancia sigue PENDIENTE en la tabla, y la
+ * recuperación periódica (de esta instancia o de otra) lo vuelve a encolar.
+ * <p>
+ * Los créditos a una cuenta de destino pueden llegar desde varias particiones;
+ * esos choques los resuelve el modo de transferencia configurado (versión o
+ * bloqueo) igual que en el camino síncrono.
+ */
+@Component
+public class MotorTransferencias implements TransferenciaAsincronaService {
+
+	private static final Logger log = LoggerFactory.getLogger(MotorTransferencias.class);
+
+	private final CuentaService cuentaService;
+
+	private final TransferenciaAsincronaRepository repository;
+
+	private final boolean habilitado;
+
+	private final int tamanioLote;
+
+	private final List<Particion> particiones = new ArrayList<>();
+
+	private final CacheAcotada<String, EstadoTransferencia> estados;
+
+	private final long retencionEstados;
+
+	private final long margenRecuperacion;
+
+	private final MetricasCuentas metricas;
+
+	private volatile boolean detenido;
+
+	public MotorTransferencias(CuentaService cuentaService, TransferenciaAsincronaRepository repository,
+			MetricasCuentas metricas,
+			@Value("${cuentas.transferir.asincrono:false}") boolean habilitado,
+			@Value("${cuentas.transferir.asincrono.particiones:4}") int particiones,
+			@Value("${cuentas.transferir.asincrono.capacidad-cola:4096}") int capacidadCola,
+			@Value("${cuentas.transferir.asincrono.tamanio-lote:256}") int tamanioLote,
+			@Value("${cuentas.transferir.asincrono.estados-maximos:100000}") int estadosMaximos,
+			@Value("${cuentas.transferir.asincrono.retencion-estados-ms:600000}") long retencionEstados,
+			@Value("${cuentas.transferir.asincrono.margen-recuperacion-ms:30000}") long margenRecuperacion) {
+		this.cuentaService = cuentaService;
+		this.repository = repository;
+		this.metricas = metricas;
+		this.habilitado = habilitado;
+		this.tamanioLote = tamanioLote;
+		this.estados = new CacheAcotada<>(estadosMaximos, retencionEstados);
+		this.retencionEstados = retencionEstados;
+		this.margenRecuperacion = margenRecuperacion;
+		if (habilitado) {
+			for (int i = 0; i < particiones; i++) {
+				this.particiones.add(new Particion(i, capacidadCola));
+			}
+		}
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		for (Particion particion : particiones) {
+			metricas.vigilarCola(particion.numero, particion.cola);
+			particion.hilo.start();
+		}
+	}
+
+	/**
+	 * Deja de aceptar transferencias y espera a que cada partición termine el
+	 * lote en curso. Lo que quede en la cola sigue PENDIENTE en la tabla.
+	 */
+	@PreDestroy
+	public void detener() throws InterruptedException {
+		detenido = true;
+		for (Particion particion : particiones) {
+			particion.hilo.join(TimeUnit.SECONDS.toMillis(10));
+			if (particion.hilo.isAlive()) {
+				log.warn("La partición {} no terminó su lote; se revertirá al cerrar la conexión", particion.numero);
+			}
+		}
+	}
+
+	@Override
+	public boolean isHabilitado() {
+		return habilitado;
+	}
+
+	@Override
+	public EstadoTransferencia enviar(TransaccionDto transaccion) {
+		if (!habilitado || detenido) {
+			throw new RejectedExecutionException("El motor de transferencias no acepta solicitudes.");
+		}
+		Particion particion = particionDe(transaccion.getCuentaOrigenId());
+		if (particion.cola.remainingCapacity() == 0) {
+			throw new RejectedExecutionException("Cola de transferencias llena.");
+		}
+		TransferenciaAsincrona pendiente = repository.save(new TransferenciaAsincrona(UUID.randomUUID().toString(),
+				transaccion, LocalDateTime.now()));
+		EstadoTransferencia estado = pendiente.aEstado();
+		// El estado se guarda antes de encolar para que el hilo escritor nunca
+		// publique un resultado que luego quede tapado por PENDIENTE.
+		estados.guardar(estado.getId(), estado);
+		if (!particion.cola.offer(estado.getId())) {
+			// Ya está en la tabla: la recuperación la encolará más tarde.
+			log.debug("Cola de la partición {} llena; la transferencia {} espera a la recuperación",
+					particion.numero, estado.getId());
+		}
+		return estado;
+	}
+
+	@Override
+	public EstadoTransferencia estado(String id) {
+		EstadoTransferencia estado = estados.obtener(id);
+		if (estado != null) {
+			return estado;
+		}
+		// Aceptada por otra instancia o antes de un reinicio.
+		return repository.findById(id).map(TransferenciaAsincrona::aEstado).orElse(null);
+	}
+
+	/**
+	 * Vuelve a encolar las transferencias que llevan más de margen-recuperacion-ms
+	 * pendientes: las que aceptó una instancia que ya no está, o las que no
+	 * cupieron en la cola. Si otra instancia también las encola, sólo la primera
+	 * en reclamarlas las aplica.
+	 */
+	@Scheduled(fixedDelayString = "${cuentas.transferir.asincrono.margen-recuperacion-ms:30000}")
+	public void recuperar() {
+		if (!habilitado || detenido) {
+			return;
+		}
+		LocalDateTime limite = LocalDateTime.now().minus(margenRecuperacion, ChronoUnit.MILLIS);
+		for (TransferenciaAsincrona pendiente : repository.findPendientesAnterioresA(limite,
+				PageRequest.of(0, tamanioLote * particiones.size()))) {
+			particionDe(pendiente.getTransaccion().getCuentaOrigenId()).cola.offer(pendiente.getId());
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${cuentas.transferir.asincrono.intervalo-purga-ms:3600000}")
+	public void purgarResueltas() {
+		estados.purgarVencidas();
+		repository.eliminarResueltasAnterioresA(LocalDateTime.now().minus(retencionEstados, ChronoUnit.MILLIS));
+	}
+
+	private Particion particionDe(Long origen) {
+		int indice = origen == null ? 0 : Math.floorMod(Long.hashCode(origen), particiones.size());
+		return particiones.get(indice);
+	}
+
+	private void aplicar(List<String> lote) {
+		Map<String, TransferenciaAsincrona> reclamadas = new LinkedHashMap<>();
+		try {
+			cuentaService.transferirLote(() -> {
+				// Se vuelve a reclamar si la transacción se repite.
+				reclamadas.clear();
+				List<TransaccionDto> transacciones = new ArrayList<>(lote.size());
+				for (TransferenciaAsincrona pendiente : repository.reclamar(lote)) {
+					reclamadas.put(pendiente.getId(), pendiente);
+					transacciones.add(pendiente.getTransaccion());
+				}
+				return transacciones;
+			}, resultados -> {
+				int i = 0;
+				for (TransferenciaAsincrona pendiente : reclamadas.values()) {
+					pendiente.resolver(resultados.get(i++));
+				}
+			});
+		} catch (RuntimeException e) {
+			// Nada se confirmó: las filas siguen PENDIENTE y la recuperación las
+			// vuelve a intentar.
+			log.warn("No se pudo aplicar un lote de {} transferencias", lote.size(), e);
+			return;
+		}
+		for (TransferenciaAsincrona resuelta : reclamadas.values()) {
+			estados.guardar(resuelta.getId(), resuelta.aEstado());
+		}
+	}
+
+	private final class Particion implements Runnable {
+
+		private final int numero;
+
+		private final BlockingQueue<String> cola;
+
+		private final Thread hilo;
+
+		Particion(int numero, int capacidad) {
+			this.numero = numero;
+			this.cola = new ArrayBlockingQueue<>(capacidad);
+			this.hilo = new Thread(this, "motor-transferencias-" + numero);
+			this.hilo.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			List<String> lote = new ArrayList<>(tamanioLote);
+			while (!detenido) {
+				try {
+					String primera = cola.poll(100, TimeUnit.MILLISECONDS);
+					if (primera == null) {
+						continue;
+					}
+					lote.add(primera);
+					cola.drainTo(lote, tamanioLote - 1);
+					aplicar(lote);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (RuntimeException e) {
+					log.error("Error inesperado en la partición {}", numero, e);
+				} finally {
+					lote.clear();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.repositories.MovimientoRepository;
+import com.gregpalacios.springtest.repositories.SaldoInstantaneaRepository;
+import com.gregpalacios.springtest.services.MovimientoService;
+
+@Service
+public class MovimientoServiceImpl implements MovimientoService {
+
+	private MovimientoRepository movimientoRepository;
+
+	private SaldoInstantaneaRepository saldoInstantaneaRepository;
+
+	public MovimientoServiceImpl(MovimientoRepository movimientoRepository,
+			SaldoInstantaneaRepository saldoInstantaneaRepository) {
+		this.movimientoRepository = movimientoRepository;
+		this.saldoInstantaneaRepository = saldoInstantaneaRepository;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Movimiento> historial(Long cuentaId, Long antesDe, int tamanio) {
+		return movimientoRepository.findByCuentaIdAndIdLessThanOrderByIdDesc(cuentaId,
+				antesDe == null ? Long.MAX_VALUE : antesDe, PageRequest.of(0, tamanio));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public BigDecimal saldoSegunLibro(Long cuentaId) {
+		return saldoInstantaneaRepository.saldoSegunLibro(cuentaId);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.gregpalacios.springtest.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gregpalacios.springtest.cache.CacheAcotada;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
+import com.gregpalacios.springtest.repositories.TransferenciaProcesadaRepository;
+
+/**
+ * Claves de idempotencia ya usadas. Las recientes se buscan en memoria; la
+ * tabla es la fuente de verdad y sólo se consulta cuando el INSERT de la clave
+ * choca con una fila existente (reintento tras desalojo, reinicio u otra
+ * instancia), de modo que una clave nueva no cuesta ninguna consulta extra.
+ */
+@Component
+public class RegistroIdempotencia {
+
+	private final TransferenciaProcesadaRepository repository;
+
+	private final CacheAcotada<String, TransferenciaProcesada> recientes;
+
+	private final long retencionMillis;
+
+	public RegistroIdempotencia(TransferenciaProcesadaRepository repository,
+			@Value("${cuentas.idempotencia.tamanio-maximo:10000}") int tamanioMaximo,
+			@Value("${cuentas.idempotencia.retencion-ms:86400000}") long retencionMillis) {
+		this.repository = repository;
+		this.recientes = new CacheAcotada<>(tamanioMaximo, retencionMillis);
+		this.retencionMillis = retencionMillis;
+	}
+
+	public TransferenciaProcesada recordada(String clave) {
+		return recientes.obtener(clave);
+	}
+
+	/**
+	 * Inserta la clave en la transacción actual. Si ya existe, el flush lanza
+	 * DataIntegrityViolationException y la transacción entera se revierte.
+	 */
+	public void registrar(TransferenciaProcesada procesada) {
+		repository.saveAndFlush(procesada);
+		Transacciones.alConfirmar(() -> recientes.guardar(procesada.getClave(), procesada));
+	}
+
+	public Optional<TransferenciaProcesada> guardada(String clave) {
+		Optional<TransferenciaProcesada> procesada = repository.findById(clave);
+		procesada.ifPresent(p -> recientes.guardar(clave, p));
+		return procesada;
+	}
+
+	@Scheduled(fixedDelayString = "${cuentas.idempotencia.intervalo-purga-ms:3600000}")
+	public void purgarVencidas() {
+		recientes.purgarVencidas();
+		repository.eliminarAnterioresA(LocalDateTime.now().minus(retencionMillis, ChronoUnit.MILLIS));
+	}
+
+	public void olvidarRecientes() {
+		recientes.limpiar();
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.gregpalacios.springtest.services.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class Transacciones {
+
+	private Transacciones() {
+	}
+
+	/**
+	 * Ejecuta la acción cuando la transacción actual confirma, o de inmediato si
+	 * no hay transacción. Si la transacción se revierte la acción se descarta.
+	 */
+	static void alConfirmar(Runnable accion) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					accion.run();
+				}
+			});
+		} else {
+			accion.run();
+		}
+	}
+
+}
@@ -1,3 +1,7 @@
-INSERT INTO cuentas (persona, saldo) VALUES ('Andrés', 1000);
-INSERT INTO cuentas (persona, saldo) VALUES ('John', 2000);
-INSERT INTO bancos (nombre, total_transferencias) VALUES ('El banco financiero', 0);
\ No newline at end of file
+INSERT INTO cuentas (id, persona, persona_normalizada, saldo, version) VALUES (1, 'Andrés', 'andres', 1000, 0);
+INSERT INTO cuentas (id, persona, persona_normalizada, saldo, version) VALUES (2, 'John', 'john', 2000, 0);
+INSERT INTO bancos (id, nombre, total_transferencias) VALUES (1, 'El banco financiero', 0);
+INSERT INTO saldos_instantaneas (cuenta_id, saldo, actualizada) VALUES (1, 1000, CURRENT_TIMESTAMP);
+INSERT INTO saldos_instantaneas (cuenta_id, saldo, actualizada) VALUES (2, 2000, CURRENT_TIMESTAMP);
+ALTER SEQUENCE cuentas_seq RESTART WITH 3;
+ALTER SEQUENCE bancos_seq RESTART WITH 2;
@@ -0,0 +1,147 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.EstadisticasBanco;
+import com.gregpalacios.springtest.models.ResumenBancos;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.BancoService;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.impl.ContadorTransferencias;
+
+@SpringBootTest(properties = { "cuentas.cache.habilitada=false",
+		"cuentas.bancos.intervalo-conciliacion-ms=3600000" })
+class AgregadosBancosTest {
+
+	@Autowired
+	CuentaService cuentaService;
+
+	@Autowired
+	BancoService bancoService;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	ContadorTransferencias contadorTransferencias;
+
+	@Test
+	void testAgregadosIncrementales() {
+		// Las dos pruebas comparten la base: se comparan diferencias, no totales.
+		assertFalse(bancoService.conciliar());
+		ResumenBancos inicial = bancoService.resumen();
+		EstadisticasBanco banco = bancoService.estadisticas(1L).orElseThrow(AssertionError::new);
+		assertEquals("El banco financiero", banco.getNombre());
+
+		Cuenta nueva = cuentaService.save(new Cuenta(null, "Agregados", new BigDecimal("500")));
+		cuentaService.saveAll(Arrays.asList(new Cuenta(null, "Agregados 2", new BigDecimal("20.50")),
+				new Cuenta(null, "Agregados 3", new BigDecimal("30"))));
+		cuentaService.transferir(nueva.getId(), 1L, new BigDecimal("100"), 1L);
+
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(nueva.getId());
+		dto.setCuentaDestinoId(2L);
+		dto.setBancoId(1L);
+		dto.setMonto(new BigDecimal("25.25"));
+		cuentaService.transferirLote(Arrays.asList(dto, dto));
+
+		ResumenBancos resumen = bancoService.resumen();
+		assertEquals(inicial.getCuentas() + 3, resumen.getCuentas());
+		assertEquals(inicial.getSaldoTotal().add(new BigDecimal("550.50")), resumen.getSaldoTotal());
+		assertEquals(inicial.getTransferencias() + 3, resumen.getTransferencias());
+		assertEquals(inicial.getVolumen().add(new BigDecimal("150.50")), resumen.getVolumen());
+
+		EstadisticasBanco despues = bancoService.estadisticas(1L).orElseThrow(AssertionError::new);
+		assertEquals(banco.getTransferencias() + 3, despues.getTransferencias());
+		assertEquals(banco.getVolumen().add(new BigDecimal("150.50")), despues.getVolumen());
+
+		Cuenta ajustada = cuentaService.findById(nueva.getId());
+		ajustada.setSaldo(new BigDecimal("600"));
+		cuentaService.save(ajustada);
+		cuentaService.deleteById(nueva.getId());
+		resumen = bancoService.resumen();
+		assertEquals(inicial.getCuentas() + 2, resumen.getCuentas());
+		// Quedan las cuentas del lote y lo transferido a las cuentas 1 y 2.
+		assertEquals(inicial.getSaldoTotal().add(new BigDecimal("50.50")).add(new BigDecimal("150.50")),
+				resumen.getSaldoTotal());
+		assertFalse(bancoService.conciliar());
+
+		assertFalse(bancoService.estadisticas(99L).isPresent());
+	}
+
+	@Test
+	void testConciliarCorrigeDesvios() {
+		ResumenBancos antes = bancoService.resumen();
+		// Un cambio que no pasa por el servicio.
+		jdbcTemplate.update("update cuentas set saldo = saldo + 7 where id = 2");
+
+		assertTrue(bancoService.conciliar());
+		assertEquals(antes.getSaldoTotal().add(new BigDecimal("7")), bancoService.resumen().getSaldoTotal());
+		assertFalse(bancoService.conciliar());
+
+		jdbcTemplate.update("update cuentas set saldo = saldo - 7 where id = 2");
+		assertTrue(bancoService.conciliar());
+	}
+
+	@Test
+	void testConciliarConCambioConfirmadoSinSumar() {
+		assertFalse(bancoService.conciliar());
+		ResumenBancos antes = bancoService.resumen();
+
+		CompletableFuture<Boolean> conciliada = new CompletableFuture<>();
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			// Registrada antes que la de los agregados: corre con la transferencia
+			// ya confirmada en la base pero todavía sin sumar en memoria.
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					conciliada.complete(CompletableFuture.supplyAsync(bancoService::conciliar).join());
+				}
+			});
+			cuentaService.transferir(1L, 2L, new BigDecimal("5"), 1L);
+		});
+
+		assertFalse(conciliada.join());
+		ResumenBancos despues = bancoService.resumen();
+		assertEquals(antes.getTransferencias() + 1, despues.getTransferencias());
+		assertEquals(antes.getVolumen().add(new BigDecimal("5")), despues.getVolumen());
+		assertFalse(bancoService.conciliar());
+
+		cuentaService.transferir(2L, 1L, new BigDecimal("5"), 1L);
+	}
+
+	@Test
+	void testTransferenciasDeUnaSolaFuente() {
+		long antes = bancoService.resumen().getTransferencias();
+		cuentaService.transferir(1L, 2L, new BigDecimal("3"), 1L);
+		cuentaService.transferir(2L, 1L, new BigDecimal("3"), 1L);
+
+		// Pendientes de volcar y ya volcadas: las estadísticas y el total del banco
+		// cuentan lo mismo.
+		assertEquals(cuentaService.revisarTotalTransferencias(1L),
+				bancoService.estadisticas(1L).orElseThrow(AssertionError::new).getTransferencias());
+		assertEquals(antes + 2, bancoService.resumen().getTransferencias());
+		contadorTransferencias.volcar();
+		assertEquals(cuentaService.revisarTotalTransferencias(1L),
+				bancoService.estadisticas(1L).orElseThrow(AssertionError::new).getTransferencias());
+		assertEquals(antes + 2, bancoService.resumen().getTransferencias());
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+import springfox.documentation.spring.web.plugins.Docket;
+
+@ActiveProfiles("prod")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class ArranqueProdTest {
+
+	@Autowired
+	private TestRestTemplate client;
+
+	@Autowired
+	private ConfigurableApplicationContext contexto;
+
+	@Test
+	void testArranqueProd() {
+		assertEquals(0, contexto.getBeanNamesForType(Docket.class).length);
+		assertFalse(contexto.getBeanFactory().containsSingleton("cuentaController"));
+
+		ResponseEntity<CuentaDto> detalle = client.getForEntity("/api/cuentas/1", CuentaDto.class);
+		assertEquals(HttpStatus.OK, detalle.getStatusCode());
+		assertEquals("Andrés", detalle.getBody().getPersona());
+		assertTrue(contexto.getBeanFactory().containsSingleton("cuentaController"));
+
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setBancoId(1L);
+		dto.setMonto(new BigDecimal("100"));
+		assertEquals(HttpStatus.OK, client.postForEntity("/api/cuentas/transferir", dto, String.class).getStatusCode());
+		assertEquals("900.00", client.getForObject("/api/cuentas/1/saldo", BigDecimal.class).toPlainString());
+
+		assertEquals(HttpStatus.NOT_FOUND, client.getForEntity("/v2/api-docs", String.class).getStatusCode());
+	}
+}
@@ -0,0 +1,117 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.impl.CacheCuentas;
+
+@SpringBootTest(properties = "cuentas.cache.habilitada=true")
+class CacheCuentasTest {
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	CacheCuentas cache;
+
+	@SpyBean
+	CuentaRepository cuentaRepo;
+
+	@BeforeEach
+	void setUp() {
+		cache.limpiar();
+	}
+
+	@Test
+	void testLecturasRepetidasSeSirvenDesdeCache() {
+		long aciertos = cache.aciertos();
+
+		Cuenta cuenta1 = service.findById(1L);
+		Cuenta cuenta2 = service.findById(1L);
+		BigDecimal saldo = service.revisarSaldo(1L);
+
+		assertEquals(aciertos + 2, cache.aciertos());
+		assertEquals(cuenta1, cuenta2);
+		assertNotSame(cuenta1, cuenta2);
+		assertEquals(0, cuenta1.getSaldo().compareTo(saldo));
+	}
+
+	@Test
+	void testTransferirInvalidaLasCuentas() {
+		BigDecimal saldoOrigen = service.revisarSaldo(1L);
+		BigDecimal saldoDestino = service.revisarSaldo(2L);
+
+		service.transferir(1L, 2L, new BigDecimal("10"), 1L);
+
+		assertEquals(0, saldoOrigen.subtract(new BigDecimal("10")).compareTo(service.revisarSaldo(1L)));
+		assertEquals(0, saldoDestino.add(new BigDecimal("10")).compareTo(service.revisarSaldo(2L)));
+	}
+
+	@Test
+	void testCopiaModificadaNoAlteraLaCache() {
+		Cuenta cuenta = service.findById(2L);
+		cuenta.setSaldo(BigDecimal.ZERO);
+
+		assertNotEquals(0, service.revisarSaldo(2L).signum());
+	}
+
+	@Test
+	void testGuardarYEliminarActualizanLaCache() {
+		Cuenta nueva = service.save(new Cuenta(null, "Cacheada", new BigDecimal("50")));
+		long aciertos = cache.aciertos();
+
+		assertEquals("Cacheada", service.findById(nueva.getId()).getPersona());
+		assertEquals(aciertos + 1, cache.aciertos());
+
+		service.deleteById(nueva.getId());
+
+		assertThrows(RecursoNoEncontradoException.class, () -> service.findById(nueva.getId()));
+	}
+
+	@Test
+	void testEscriturasDeOtraCuentaNoImpidenGuardar() {
+		Cuenta cuenta1 = service.findById(1L);
+		cache.limpiar();
+
+		long generacion = cache.generacion(1L);
+		cache.invalidarAlConfirmar(Arrays.asList(2L));
+		cache.guardar(cuenta1, generacion);
+		assertNotNull(cache.obtener(1L));
+
+		cache.limpiar();
+		generacion = cache.generacion(1L);
+		cache.invalidarAlConfirmar(Arrays.asList(1L));
+		cache.guardar(cuenta1, generacion);
+		assertNull(cache.obtener(1L));
+	}
+
+	@Test
+	void testDetalleYSaldoLlenanLaCache() {
+		service.transferir(1L, 2L, new BigDecimal("1"), 1L);
+		clearInvocations(cuentaRepo);
+
+		assertEquals(service.detalle(1L).orElseThrow(AssertionError::new).getSaldo(), service.revisarSaldo(1L));
+		assertEquals(service.revisarSaldo(2L), service.detalle(2L).orElseThrow(AssertionError::new).getSaldo());
+
+		verify(cuentaRepo, times(1)).findById(1L);
+		verify(cuentaRepo, times(1)).findById(2L);
+		verify(cuentaRepo, never()).findDtoById(anyLong());
+		verify(cuentaRepo, never()).findSaldoById(anyLong());
+
+		service.transferir(2L, 1L, new BigDecimal("1"), 1L);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.impl.CacheCuentas;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = { "cuentas.cache.habilitada=false", "cuentas.lecturas.coalescer=true",
+		"spring.datasource.hikari.maximum-pool-size=1" })
+class CoalescenciaLecturasTest {
+
+	@MockBean
+	CuentaRepository cuentaRepo;
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	MeterRegistry registro;
+
+	@Autowired
+	CacheCuentas cacheCuentas;
+
+	@Test
+	void testLosQueEsperanNoOcupanConexion() throws Exception {
+		coalescerCuatroLecturas(() -> {
+		});
+	}
+
+	@Test
+	void testEscriturasDeOtrasCuentasNoCortanLaCoalescencia() throws Exception {
+		// Transferencias confirmadas entre otras cuentas durante la carga.
+		coalescerCuatroLecturas(() -> cacheCuentas.invalidarAlConfirmar(Arrays.asList(2L, 3L)));
+	}
+
+	private void coalescerCuatroLecturas(Runnable duranteLaCarga) throws Exception {
+		reset(cuentaRepo);
+		// Given: la carga queda detenida con la única conexión del pool.
+		CountDownLatch cargando = new CountDownLatch(1);
+		CountDownLatch continuar = new CountDownLatch(1);
+		when(cuentaRepo.findSaldoById(1L)).thenAnswer(invocacion -> {
+			cargando.countDown();
+			assertTrue(continuar.await(5, TimeUnit.SECONDS));
+			return Optional.of(new BigDecimal("1000"));
+		});
+		HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+		double coalescidas = coalescidas();
+		ExecutorService hilos = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<BigDecimal>> saldos = new ArrayList<>();
+			saldos.add(hilos.submit(() -> service.revisarSaldo(1L)));
+			assertTrue(cargando.await(5, TimeUnit.SECONDS));
+
+			// When
+			for (int i = 0; i < 4; i++) {
+				duranteLaCarga.run();
+				saldos.add(hilos.submit(() -> service.revisarSaldo(1L)));
+			}
+
+			// Then: los cuatro se suman a la carga sin pedir conexión; si la
+			// pidieran, con un pool de una sola no llegarían a sumarse.
+			long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (coalescidas() < coalescidas + 4 && System.nanoTime() < limite) {
+				Thread.sleep(10);
+			}
+			assertEquals(coalescidas + 4, coalescidas());
+			assertEquals(0, pool.getThreadsAwaitingConnection());
+			assertTrue(pool.getActiveConnections() <= 1);
+
+			continuar.countDown();
+			for (Future<BigDecimal> saldo : saldos) {
+				assertEquals("1000", saldo.get(5, TimeUnit.SECONDS).toPlainString());
+			}
+			verify(cuentaRepo, times(1)).findSaldoById(1L);
+		} finally {
+			continuar.countDown();
+			hilos.shutdownNow();
+		}
+	}
+
+	private double coalescidas() {
+		return registro.get("cuentas.lecturas").tag("operacion", "revisarSaldo").tag("resultado", "coalescida")
+				.functionCounter().count();
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.impl.IndicePersonas;
+
+@SpringBootTest(properties = "cuentas.cache.habilitada=false")
+class IndicePersonasTest {
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	IndicePersonas indice;
+
+	@Test
+	void testNormalizarPersona() {
+		assertEquals("andres perez", Cuenta.normalizarPersona("  ANDRÉS   Pérez "));
+		assertEquals("nunez", Cuenta.normalizarPersona("Núñez"));
+		assertNull(Cuenta.normalizarPersona(null));
+	}
+
+	@Test
+	void testBuscarPorPersonaYPrefijo() {
+		// Cargado al arrancar desde import.sql.
+		assertEquals(Arrays.asList("Andrés"), personas(service.buscarPorPrefijo("andr", 10)));
+
+		List<Cuenta> nuevas = service.saveAll(Arrays.asList(new Cuenta(null, "Andres", new BigDecimal("10")),
+				new Cuenta(null, "ANDRÉS", new BigDecimal("20")), new Cuenta(null, "Andrea", new BigDecimal("30"))));
+
+		List<Cuenta> andres = service.findByPersona("andrés", 0, 10);
+		assertEquals(3, andres.size());
+		assertEquals(1L, andres.get(0).getId());
+		assertEquals(1, service.findByPersona("Andres", 1, 2).size());
+
+		assertEquals(Arrays.asList("Andrea", "Andrés", "Andres", "ANDRÉS"),
+				personas(service.buscarPorPrefijo("ÁNDR", 10)));
+		assertEquals(2, service.buscarPorPrefijo("andr", 2).size());
+
+		Cuenta andrea = nuevas.get(2);
+		andrea.setPersona("Beatriz");
+		service.save(andrea);
+		service.deleteById(nuevas.get(0).getId());
+
+		assertEquals(Arrays.asList("Andrés", "ANDRÉS"), personas(service.buscarPorPrefijo("andr", 10)));
+		assertEquals(Arrays.asList("Beatriz"), personas(service.buscarPorPrefijo("b", 10)));
+		assertTrue(service.buscarPorPrefijo(" ", 10).isEmpty());
+
+		service.deleteById(nuevas.get(1).getId());
+		service.deleteById(andrea.getId());
+		assertEquals(2, indice.tamanio());
+	}
+
+	private static List<String> personas(List<Cuenta> cuentas) {
+		return cuentas.stream().map(Cuenta::getPersona).collect(Collectors.toList());
+	}
+}
@@ -5,13 +5,19 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
 import com.gregpalacios.springtest.repositories.CuentaRepository;
 
 @Tag("integracion_jpa")
@@ -21,6 +27,9 @@ public class IntegracionJpaTest {
 	@Autowired
 	private CuentaRepository cuentaRepo;
 
+	@Autowired
+	private TestEntityManager entityManager;
+
 	@Test
 	void testFindById() {
 		Optional<Cuenta> cuenta = cuentaRepo.findById(1L);
@@ -105,4 +114,60 @@ public class IntegracionJpaTest {
 		});
 	}
 
+	@Test
+	void testFindPagina() {
+		cuentaRepo.save(new Cuenta(null, "Pepe", new BigDecimal("3000")));
+
+		List<CuentaDto> primera = cuentaRepo.findDtosDespuesDe(0L, PageRequest.of(0, 2));
+		assertEquals(2, primera.size());
+		assertEquals("Andrés", primera.get(0).getPersona());
+		assertEquals("John", primera.get(1).getPersona());
+
+		List<CuentaDto> segunda = cuentaRepo.findDtosDespuesDe(primera.get(1).getId(), PageRequest.of(0, 2));
+		assertEquals(1, segunda.size());
+		assertEquals("Pepe", segunda.get(0).getPersona());
+	}
+
+	@Test
+	void testStreamDtos() {
+		List<String> personas;
+		try (Stream<CuentaDto> cuentas = cuentaRepo.streamDtos()) {
+			personas = cuentas.map(CuentaDto::getPersona).collect(Collectors.toList());
+		}
+
+		assertEquals(2, personas.size());
+		assertEquals("Andrés", personas.get(0));
+		assertEquals("John", personas.get(1));
+	}
+
+	@Test
+	void testProyecciones() {
+		List<CuentaDto> cuentas = cuentaRepo.findDtosDespuesDe(0L, PageRequest.of(0, 5));
+		assertEquals(2, cuentas.size());
+		assertEquals("Andrés", cuentas.get(0).getPersona());
+		assertEquals("2000.00", cuentas.get(1).getSaldo().toPlainString());
+
+		assertEquals("John", cuentaRepo.findDtosDespuesDe(1L, PageRequest.of(0, 5)).get(0).getPersona());
+		assertEquals("Andrés", cuentaRepo.findDtoById(1L).orElseThrow(null).getPersona());
+		assertFalse(cuentaRepo.findDtoById(9L).isPresent());
+		assertEquals("1000.00", cuentaRepo.findSaldoById(1L).orElseThrow(null).toPlainString());
+		assertFalse(cuentaRepo.findSaldoById(9L).isPresent());
+
+		// Nada de lo anterior quedó en el contexto de persistencia.
+		assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+	}
+
+	@Test
+	void testDebitarYAcreditar() {
+		assertEquals(1, cuentaRepo.debitar(1L, new BigDecimal("400")));
+		assertEquals(0, cuentaRepo.debitar(1L, new BigDecimal("600.01")));
+		assertEquals(0, cuentaRepo.debitar(9L, new BigDecimal("1")));
+		assertEquals(1, cuentaRepo.acreditar(2L, new BigDecimal("400")));
+		assertEquals(0, cuentaRepo.acreditar(9L, new BigDecimal("1")));
+
+		assertEquals("600.00", cuentaRepo.findSaldoById(1L).orElseThrow(null).toPlainString());
+		assertEquals("2400.00", cuentaRepo.findSaldoById(2L).orElseThrow(null).toPlainString());
+		assertEquals(1L, cuentaRepo.findDtoById(1L).orElseThrow(null).getVersion());
+	}
+
 }
@@ -0,0 +1,135 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.repositories.SaldoInstantaneaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.MovimientoService;
+import com.gregpalacios.springtest.services.impl.LibroMovimientos;
+
+@SpringBootTest(properties = { "cuentas.movimientos.tamanio-lote-compactacion=2",
+		"cuentas.movimientos.intervalo-compactacion-ms=3600000" })
+class LibroMovimientosTest {
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	MovimientoService movimientoService;
+
+	@Autowired
+	LibroMovimientos libro;
+
+	@Autowired
+	SaldoInstantaneaRepository saldoInstantaneaRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void testTransferenciasQuedanEnElLibro() {
+		service.transferir(1L, 2L, new BigDecimal("100"), 1L);
+		service.transferirLote(Arrays.asList(crearTransaccion(2L, 1L, "30"), crearTransaccion(1L, 2L, "5000")));
+
+		List<Movimiento> historial = movimientoService.historial(1L, null, 10);
+
+		assertEquals(2, historial.size());
+		assertEquals(Movimiento.Tipo.CREDITO, historial.get(0).getTipo());
+		assertEquals(0, new BigDecimal("30").compareTo(historial.get(0).getImporte()));
+		assertEquals(2L, historial.get(0).getContraparteId());
+		assertEquals(Movimiento.Tipo.DEBITO, historial.get(1).getTipo());
+		assertEquals(0, new BigDecimal("-100").compareTo(historial.get(1).getImporte()));
+		assertTrue(historial.get(0).getId() > historial.get(1).getId());
+
+		List<Movimiento> siguiente = movimientoService.historial(1L, historial.get(0).getId(), 10);
+		assertEquals(1, siguiente.size());
+		assertEquals(historial.get(1).getId(), siguiente.get(0).getId());
+
+		assertEquals(0, service.revisarSaldo(1L).compareTo(movimientoService.saldoSegunLibro(1L)));
+		assertEquals(0, service.revisarSaldo(2L).compareTo(movimientoService.saldoSegunLibro(2L)));
+
+		// Lotes de dos: la compactación tiene que dar varias vueltas.
+		assertTrue(libro.compactar() >= 4);
+		assertEquals(0, libro.compactar());
+		assertEquals(0, service.revisarSaldo(1L)
+				.compareTo(saldoInstantaneaRepository.findById(1L).orElseThrow(null).getSaldo()));
+		assertEquals(0, service.revisarSaldo(1L).compareTo(movimientoService.saldoSegunLibro(1L)));
+		assertEquals(0, service.revisarSaldo(2L).compareTo(movimientoService.saldoSegunLibro(2L)));
+	}
+
+	@Test
+	void testMovimientoConIdMenorTrasCompactar() {
+		Long id = service.save(new Cuenta(null, "Tardía", new BigDecimal("50"))).getId();
+		service.transferir(id, 2L, new BigDecimal("10"), 1L);
+		libro.compactar();
+		assertEquals(0, new BigDecimal("40").compareTo(movimientoService.saldoSegunLibro(id)));
+
+		// Un id de un bloque de secuencia más antiguo (otra instancia, o un lote
+		// largo) que confirma después de que se compactaran ids mayores.
+		jdbcTemplate.update("insert into movimientos (id, cuenta_id, tipo, importe, fecha, compactado)"
+				+ " values (-1, ?, 'AJUSTE', 5.00, current_timestamp, false)", id);
+
+		assertEquals(0, new BigDecimal("45").compareTo(movimientoService.saldoSegunLibro(id)));
+		assertEquals(1, libro.compactar());
+		assertEquals(0, new BigDecimal("45").compareTo(movimientoService.saldoSegunLibro(id)));
+		assertEquals(0,
+				new BigDecimal("45").compareTo(saldoInstantaneaRepository.findById(id).orElseThrow(null).getSaldo()));
+	}
+
+	@Test
+	void testAperturaYAjuste() {
+		Cuenta cuenta = service.save(new Cuenta(null, "Libro", new BigDecimal("75")));
+		assertEquals(0, new BigDecimal("75").compareTo(movimientoService.saldoSegunLibro(cuenta.getId())));
+
+		cuenta.setSaldo(new BigDecimal("60"));
+		service.save(cuenta);
+
+		List<Movimiento> historial = movimientoService.historial(cuenta.getId(), null, 10);
+		assertEquals(1, historial.size());
+		assertEquals(Movimiento.Tipo.AJUSTE, historial.get(0).getTipo());
+		assertEquals(0, new BigDecimal("-15").compareTo(historial.get(0).getImporte()));
+		assertEquals(0, new BigDecimal("60").compareTo(movimientoService.saldoSegunLibro(cuenta.getId())));
+		assertNull(movimientoService.saldoSegunLibro(999L));
+	}
+
+	@Test
+	void testCrearCuentasEnLote() {
+		List<Cuenta> nuevas = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			nuevas.add(new Cuenta(null, "Lote " + i, new BigDecimal(i)));
+		}
+
+		List<Cuenta> creadas = service.saveAll(nuevas);
+
+		assertEquals(120, creadas.size());
+		for (int i = 1; i < creadas.size(); i++) {
+			assertEquals(creadas.get(i - 1).getId() + 1, creadas.get(i).getId());
+		}
+		Cuenta ultima = creadas.get(119);
+		assertEquals("Lote 119", service.findById(ultima.getId()).getPersona());
+		assertEquals(0, new BigDecimal("119").compareTo(movimientoService.saldoSegunLibro(ultima.getId())));
+	}
+
+	private TransaccionDto crearTransaccion(Long origen, Long destino, String monto) {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(origen);
+		dto.setCuentaDestinoId(destino);
+		dto.setMonto(new BigDecimal(monto));
+		dto.setBancoId(1L);
+		return dto;
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gregpalacios.springtest.models.EstadoTransferencia;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaAsincrona;
+import com.gregpalacios.springtest.repositories.TransferenciaAsincronaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.TransferenciaAsincronaService;
+import com.gregpalacios.springtest.services.impl.MotorTransferencias;
+
+@SpringBootTest(properties = { "cuentas.transferir.asincrono=true", "cuentas.transferir.asincrono.particiones=2",
+		"cuentas.transferir.reintentos=10" })
+class MotorTransferenciasTest {
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	TransferenciaAsincronaService motor;
+
+	@Autowired
+	MotorTransferencias motorTransferencias;
+
+	@Autowired
+	TransferenciaAsincronaRepository transferencias;
+
+	@Test
+	void testTransferenciasAsincronas() throws InterruptedException {
+		BigDecimal total = service.revisarSaldo(1L).add(service.revisarSaldo(2L));
+
+		List<EstadoTransferencia> enviadas = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			enviadas.add(motor.enviar(crearTransaccion(i % 2 == 0 ? 1L : 2L, i % 2 == 0 ? 2L : 1L, "10")));
+		}
+		EstadoTransferencia sinFondos = motor.enviar(crearTransaccion(1L, 2L, "100000"));
+
+		for (EstadoTransferencia enviada : enviadas) {
+			assertEquals(ResultadoTransferencia.OK, esperar(enviada.getId()).getStatus());
+		}
+		EstadoTransferencia rechazada = esperar(sinFondos.getId());
+		assertEquals(ResultadoTransferencia.ERROR, rechazada.getStatus());
+		assertEquals("Dinero insuficiente en la cuenta.", rechazada.getMensaje());
+
+		assertEquals(0, total.compareTo(service.revisarSaldo(1L).add(service.revisarSaldo(2L))));
+		assertNull(motor.estado("inexistente"));
+	}
+
+	@Test
+	void testRecuperarPendientes() throws InterruptedException {
+		// Given: aceptada por una instancia que cayó antes de aplicarla.
+		BigDecimal saldoOrigen = service.revisarSaldo(1L);
+		transferencias.save(new TransferenciaAsincrona("caida-1", crearTransaccion(1L, 2L, "7"),
+				LocalDateTime.now().minusHours(1)));
+		assertEquals(EstadoTransferencia.PENDIENTE, motor.estado("caida-1").getStatus());
+
+		// When
+		motorTransferencias.recuperar();
+		EstadoTransferencia aplicada = esperar("caida-1");
+		motorTransferencias.recuperar();
+		Thread.sleep(300);
+
+		// Then: se aplica una sola vez aunque se recupere dos veces.
+		assertEquals(ResultadoTransferencia.OK, aplicada.getStatus());
+		assertEquals(ResultadoTransferencia.OK, transferencias.findById("caida-1").get().getEstado());
+		assertEquals(0, saldoOrigen.subtract(new BigDecimal("7")).compareTo(service.revisarSaldo(1L)));
+	}
+
+	private EstadoTransferencia esperar(String id) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		EstadoTransferencia estado = motor.estado(id);
+		while (EstadoTransferencia.PENDIENTE.equals(estado.getStatus()) && System.nanoTime() < limite) {
+			Thread.sleep(10);
+			estado = motor.estado(id);
+		}
+		return estado;
+	}
+
+	private TransaccionDto crearTransaccion(Long origen, Long destino, String monto) {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(origen);
+		dto.setCuentaDestinoId(destino);
+		dto.setMonto(new BigDecimal(monto));
+		dto.setBancoId(1L);
+		return dto;
+	}
+
+}
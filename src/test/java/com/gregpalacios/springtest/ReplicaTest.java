@@ -0,0 +1,69 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.services.CuentaService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Dos bases H2 distintas: la "réplica" tiene datos propios, así se ve de dónde
+ * sale cada lectura.
+ */
+@ActiveProfiles("replica")
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:primaria-test;DB_CLOSE_DELAY=-1",
+		"cuentas.replica.datasource.url=jdbc:h2:mem:replica-test;DB_CLOSE_DELAY=-1",
+		"cuentas.cache.habilitada=false" })
+class ReplicaTest {
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	@Qualifier("primariaDataSource")
+	HikariDataSource primaria;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	HikariDataSource replica;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Test
+	void testLecturasVanALaReplica() {
+		JdbcTemplate jdbcReplica = new JdbcTemplate(replica);
+		jdbcReplica.execute("CREATE TABLE cuentas (id BIGINT PRIMARY KEY, persona VARCHAR(255), "
+				+ "persona_normalizada VARCHAR(255), saldo DECIMAL(19, 2), version BIGINT NOT NULL)");
+		jdbcReplica.update("INSERT INTO cuentas VALUES (1, 'Andrés', 'andres', 999, 0)");
+
+		assertEquals("primaria", primaria.getPoolName());
+		assertEquals("replica", replica.getPoolName());
+		assertEquals(4, primaria.getMaximumPoolSize());
+		assertEquals(16, replica.getMaximumPoolSize());
+
+		List<Cuenta> cuentas = service.findAll();
+		assertEquals(1, cuentas.size());
+		assertEquals("999.00", service.revisarSaldo(1L).toPlainString());
+
+		Cuenta nueva = service.save(new Cuenta(null, "Primaria", new BigDecimal("10")));
+		assertEquals(1, new JdbcTemplate(primaria).queryForObject("select count(*) from cuentas where id = ?",
+				Integer.class, nueva.getId()));
+		assertFalse(service.buscar(nueva.getId()).isPresent());
+
+		// Sin transacción se usa la primaria.
+		assertEquals(3, new JdbcTemplate(dataSource).queryForObject("select count(*) from cuentas", Integer.class));
+	}
+}
@@ -7,6 +7,10 @@ import static org.mockito.Mockito.*;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,14 +18,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import com.gregpalacios.springtest.exceptions.ClaveIdempotenciaEnUsoException;
 import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.MontoInvalidoException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
 import com.gregpalacios.springtest.models.Banco;
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
 import com.gregpalacios.springtest.repositories.BancoRepository;
 import com.gregpalacios.springtest.repositories.CuentaRepository;
 import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.impl.ContadorTransferencias;
+import com.gregpalacios.springtest.services.impl.RegistroIdempotencia;
 
-@SpringBootTest
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "cuentas.transferencias.intervalo-volcado-ms=3600000")
 class SpringbootTestApplicationTests {
 
 	@MockBean
@@ -33,17 +47,27 @@ class SpringbootTestApplicationTests {
 	@Autowired
 	CuentaService service;
 
+	@Autowired
+	ContadorTransferencias contador;
+
+	@Autowired
+	MeterRegistry registro;
+
+	@Autowired
+	RegistroIdempotencia registroIdempotencia;
+
 	@BeforeEach
 	void setUp() {
 		// cuentaRepo = mock(CuentaRepository.class);
 		// bancoRepo = mock(BancoRepository.class);
 		// service = new CuentaServiceImpl(cuentaRepo, bancoRepo);
+		contador.descartarPendientes();
+		when(bancoRepo.existsById(1L)).thenReturn(true);
 	}
 
 	@Test
 	void contextLoads() {
-		when(cuentaRepo.findById(1L)).thenReturn(Datos.crearCuenta001());
-		when(cuentaRepo.findById(2L)).thenReturn(Datos.crearCuenta002());
+		cuentasEnRepositorio();
 		when(bancoRepo.findById(1L)).thenReturn(Datos.crearBanco());
 
 		BigDecimal saldoOrigen = service.revisarSaldo(1L);
@@ -64,21 +88,24 @@ class SpringbootTestApplicationTests {
 
 		assertEquals(1, total);
 
-		verify(cuentaRepo, times(3)).findById(1L);
-		verify(cuentaRepo, times(3)).findById(2L);
+		// Los saldos salen de la consulta escalar; sólo la transferencia carga
+		// las entidades.
+		verify(cuentaRepo, times(2)).findSaldoById(1L);
+		verify(cuentaRepo, times(2)).findSaldoById(2L);
+		verify(cuentaRepo, times(1)).findById(1L);
+		verify(cuentaRepo, times(1)).findById(2L);
 		verify(cuentaRepo, times(2)).save(any(Cuenta.class));
 
-		verify(bancoRepo, times(2)).findById(1L);
-		verify(bancoRepo).save(any(Banco.class));
+		verify(bancoRepo, times(1)).findById(1L);
+		verify(bancoRepo, never()).save(any(Banco.class));
 
-		verify(cuentaRepo, times(6)).findById(anyLong());
+		verify(cuentaRepo, times(2)).findById(anyLong());
 		verify(cuentaRepo, never()).findAll();
 	}
 
 	@Test
 	void contextLoads2() {
-		when(cuentaRepo.findById(1L)).thenReturn(Datos.crearCuenta001());
-		when(cuentaRepo.findById(2L)).thenReturn(Datos.crearCuenta002());
+		cuentasEnRepositorio();
 		when(bancoRepo.findById(1L)).thenReturn(Datos.crearBanco());
 
 		BigDecimal saldoOrigen = service.revisarSaldo(1L);
@@ -101,14 +128,16 @@ class SpringbootTestApplicationTests {
 
 		assertEquals(0, total);
 
-		verify(cuentaRepo, times(3)).findById(1L);
-		verify(cuentaRepo, times(2)).findById(2L);
+		verify(cuentaRepo, times(2)).findSaldoById(1L);
+		verify(cuentaRepo, times(2)).findSaldoById(2L);
+		verify(cuentaRepo, times(1)).findById(1L);
+		verify(cuentaRepo, never()).findById(2L);
 		verify(cuentaRepo, never()).save(any(Cuenta.class));
 
 		verify(bancoRepo, times(1)).findById(1L);
 		verify(bancoRepo, never()).save(any(Banco.class));
 
-		verify(cuentaRepo, times(5)).findById(anyLong());
+		verify(cuentaRepo, times(1)).findById(anyLong());
 		verify(cuentaRepo, never()).findAll();
 	}
 
@@ -161,4 +190,167 @@ class SpringbootTestApplicationTests {
 		verify(cuentaRepo).save(any());
 	}
 
+	@Test
+	void testTransferirLote() {
+		// Given
+		Cuenta cuenta1 = Datos.crearCuenta001().orElseThrow(null);
+		Cuenta cuenta2 = Datos.crearCuenta002().orElseThrow(null);
+		when(cuentaRepo.findAllById(any())).thenReturn(Arrays.asList(cuenta1, cuenta2));
+		when(bancoRepo.findById(1L)).thenReturn(Datos.crearBanco());
+
+		List<TransaccionDto> lote = Arrays.asList(crearTransaccion(1L, 2L, "100"), crearTransaccion(1L, 2L, "5000"),
+				crearTransaccion(2L, 1L, "300"), crearTransaccion(1L, 9L, "10"));
+
+		// When
+		List<ResultadoTransferencia> resultados = service.transferirLote(lote);
+
+		// Then
+		assertEquals(4, resultados.size());
+		assertEquals(ResultadoTransferencia.OK, resultados.get(0).getStatus());
+		assertEquals(ResultadoTransferencia.ERROR, resultados.get(1).getStatus());
+		assertEquals("Dinero insuficiente en la cuenta.", resultados.get(1).getMensaje());
+		assertEquals(ResultadoTransferencia.OK, resultados.get(2).getStatus());
+		assertEquals(ResultadoTransferencia.ERROR, resultados.get(3).getStatus());
+		assertEquals(3, resultados.get(3).getIndice());
+
+		assertEquals("1200", cuenta1.getSaldo().toPlainString());
+		assertEquals("1800", cuenta2.getSaldo().toPlainString());
+		assertEquals(2, service.revisarTotalTransferencias(1L));
+
+		verify(cuentaRepo).findAllById(any());
+		verify(bancoRepo, never()).save(any(Banco.class));
+		verify(cuentaRepo, never()).findById(anyLong());
+	}
+
+	@Test
+	void testVolcarTotalTransferencias() {
+		// Given
+		when(cuentaRepo.findById(1L)).thenReturn(Datos.crearCuenta001());
+		when(cuentaRepo.findById(2L)).thenReturn(Datos.crearCuenta002());
+		when(bancoRepo.findById(1L)).thenReturn(Datos.crearBanco());
+		when(bancoRepo.incrementarTotalTransferencias(1L, 2)).thenReturn(1);
+
+		service.transferir(1L, 2L, new BigDecimal("100"), 1L);
+		service.transferir(2L, 1L, new BigDecimal("50"), 1L);
+		assertEquals(2, contador.pendientes(1L));
+
+		// When
+		contador.volcar();
+
+		// Then
+		assertEquals(0, contador.pendientes(1L));
+		verify(bancoRepo).incrementarTotalTransferencias(1L, 2);
+		verify(bancoRepo, never()).save(any(Banco.class));
+	}
+
+	@Test
+	void testTotalTransferenciasDuranteVolcado() throws Exception {
+		// Given
+		when(cuentaRepo.findById(1L)).thenReturn(Datos.crearCuenta001());
+		when(cuentaRepo.findById(2L)).thenReturn(Datos.crearCuenta002());
+		Banco banco = Datos.crearBanco().orElseThrow(null);
+		when(bancoRepo.findById(1L)).thenAnswer(invocation -> Optional.of(banco));
+		service.transferir(1L, 2L, new BigDecimal("100"), 1L);
+		service.transferir(2L, 1L, new BigDecimal("50"), 1L);
+
+		// When: el UPDATE ya escribió en la tabla y la lectura llega antes de
+		// que el contador descuente lo volcado.
+		CompletableFuture<Integer> total = new CompletableFuture<>();
+		when(bancoRepo.incrementarTotalTransferencias(1L, 2)).thenAnswer(invocation -> {
+			banco.setTotalTransferencias(banco.getTotalTransferencias() + 2);
+			CompletableFuture.runAsync(() -> total.complete(service.revisarTotalTransferencias(1L)));
+			Thread.sleep(100);
+			assertFalse(total.isDone());
+			return 1;
+		});
+		contador.volcar();
+
+		// Then
+		assertEquals(2, total.get(5, TimeUnit.SECONDS));
+		assertEquals(2, service.revisarTotalTransferencias(1L));
+		assertEquals(0, contador.pendientes(1L));
+	}
+
+	@Test
+	void testTransferirMontoInvalido() {
+		assertThrows(MontoInvalidoException.class, () -> {
+			service.transferir(1L, 2L, new BigDecimal("10.555"), 1L);
+		});
+		assertThrows(MontoInvalidoException.class, () -> {
+			service.transferir(UUID.randomUUID().toString(), crearTransaccion(1L, 2L, "1.001"));
+		});
+
+		verify(cuentaRepo, never()).findById(anyLong());
+		verify(cuentaRepo, never()).save(any(Cuenta.class));
+	}
+
+	@Test
+	void testMetricas() {
+		// Given
+		when(cuentaRepo.findById(1L)).thenReturn(Datos.crearCuenta001());
+		when(cuentaRepo.findById(2L)).thenReturn(Datos.crearCuenta002());
+		when(cuentaRepo.findById(9L)).thenReturn(Optional.empty());
+		double insuficientes = registro.counter("cuentas.dinero.insuficiente").count();
+		double noEncontradas = registro.counter("cuentas.no.encontradas").count();
+		long transferencias = registro.timer("cuentas.operacion", "operacion", "transferir").count();
+
+		// When
+		assertThrows(DineroInsuficienteException.class, () -> {
+			service.transferir(1L, 2L, new BigDecimal("1200"), 1L);
+		});
+		assertThrows(RecursoNoEncontradoException.class, () -> {
+			service.findById(9L);
+		});
+
+		// Then
+		assertEquals(insuficientes + 1, registro.counter("cuentas.dinero.insuficiente").count());
+		assertEquals(noEncontradas + 1, registro.counter("cuentas.no.encontradas").count());
+		assertEquals(transferencias + 1, registro.timer("cuentas.operacion", "operacion", "transferir").count());
+		assertNotNull(registro.find("cache.size").tag("cache", "cuentas").gauge());
+	}
+
+	@Test
+	void testTransferirIdempotente() {
+		// Given
+		cuentasEnRepositorio();
+		when(bancoRepo.findById(1L)).thenReturn(Datos.crearBanco());
+		String clave = UUID.randomUUID().toString();
+		TransaccionDto dto = crearTransaccion(1L, 2L, "100");
+
+		// When
+		TransferenciaProcesada primera = service.transferir(clave, dto);
+		TransferenciaProcesada enMemoria = service.transferir(clave, crearTransaccion(1L, 2L, "100.00"));
+		registroIdempotencia.olvidarRecientes();
+		TransferenciaProcesada enTabla = service.transferir(clave, dto);
+
+		// Then
+		assertSame(primera, enMemoria);
+		assertEquals(primera.getCreada(), enTabla.getCreada());
+		assertEquals("900", service.revisarSaldo(1L).toPlainString());
+		assertEquals("2100", service.revisarSaldo(2L).toPlainString());
+		assertEquals(1, service.revisarTotalTransferencias(1L));
+		assertThrows(ClaveIdempotenciaEnUsoException.class, () -> {
+			service.transferir(clave, crearTransaccion(1L, 2L, "200"));
+		});
+
+		verify(cuentaRepo, times(2)).save(any(Cuenta.class));
+	}
+
+	private void cuentasEnRepositorio() {
+		for (Cuenta cuenta : Arrays.asList(Datos.crearCuenta001().orElseThrow(null),
+				Datos.crearCuenta002().orElseThrow(null))) {
+			when(cuentaRepo.findById(cuenta.getId())).thenReturn(Optional.of(cuenta));
+			when(cuentaRepo.findSaldoById(cuenta.getId())).thenAnswer(invocacion -> Optional.of(cuenta.getSaldo()));
+		}
+	}
+
+	private TransaccionDto crearTransaccion(Long origen, Long destino, String monto) {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(origen);
+		dto.setCuentaDestinoId(destino);
+		dto.setMonto(new BigDecimal(monto));
+		dto.setBancoId(1L);
+		return dto;
+	}
+
 }
@@ -0,0 +1,59 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.services.ModoTransferencia;
+
+@Tag("concurrencia")
+@SpringBootTest(properties = { "cuentas.transferir.modo=ATOMICA",
+		"spring.datasource.url=jdbc:h2:mem:concurrencia_atomica;LOCK_TIMEOUT=10000" })
+class TransferenciasConcurrentesAtomicaTest extends TransferenciasConcurrentesBase {
+
+	@Override
+	void verificarConflictos(int conflictos) {
+		// Los UPDATE se emiten en orden de id: no hay deadlocks que esperar.
+		assertEquals(0, conflictos);
+	}
+
+	@Test
+	void testTransferirAtomica() {
+		Cuenta origen = cuentaRepo.save(new Cuenta(null, "Atómica origen", new BigDecimal("100")));
+		Cuenta destino = cuentaRepo.save(new Cuenta(null, "Atómica destino", new BigDecimal("0")));
+
+		service.transferir(destino.getId(), origen.getId(), new BigDecimal("0.00"), 1L);
+		service.transferir(origen.getId(), destino.getId(), new BigDecimal("60.50"), 1L);
+		assertThrows(DineroInsuficienteException.class,
+				() -> service.transferir(origen.getId(), destino.getId(), new BigDecimal("40"), 1L));
+		// El débito se revierte si el crédito no encuentra la cuenta.
+		assertThrows(RecursoNoEncontradoException.class,
+				() -> service.transferir(origen.getId(), 999L, new BigDecimal("1"), 1L));
+		assertThrows(RecursoNoEncontradoException.class,
+				() -> service.transferir(999L, origen.getId(), new BigDecimal("1"), 1L));
+
+		assertEquals("39.50", service.revisarSaldo(origen.getId()).toPlainString());
+		assertEquals("60.50", service.revisarSaldo(destino.getId()).toPlainString());
+		assertEquals(2L, cuentaRepo.findById(origen.getId()).orElseThrow(null).getVersion());
+	}
+
+	@Test
+	void testCambiarModoEnEjecucion() {
+		assertEquals(ModoTransferencia.ATOMICA, service.getModoTransferencia());
+		service.setModoTransferencia(ModoTransferencia.PESIMISTA);
+		try {
+			service.transferir(1L, 2L, new BigDecimal("1"), 1L);
+			assertEquals(ModoTransferencia.PESIMISTA, service.getModoTransferencia());
+		} finally {
+			service.setModoTransferencia(ModoTransferencia.ATOMICA);
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.repositories.CuentaRepository;
+import com.gregpalacios.springtest.services.CuentaService;
+
+abstract class TransferenciasConcurrentesBase {
+
+	static final int HILOS = 64;
+
+	static final int TRANSFERENCIAS_POR_HILO = 30;
+
+	@Autowired
+	CuentaService service;
+
+	@Autowired
+	CuentaRepository cuentaRepo;
+
+	final AtomicInteger exitosas = new AtomicInteger();
+
+	final AtomicInteger sinFondos = new AtomicInteger();
+
+	final AtomicInteger conflictos = new AtomicInteger();
+
+	final List<Throwable> inesperados = new ArrayList<>();
+
+	@Test
+	void testTotalSeConservaConTransferenciasConcurrentes() throws InterruptedException {
+		// Given
+		for (int i = 0; i < 6; i++) {
+			cuentaRepo.save(new Cuenta(null, "Concurrente " + i, new BigDecimal("500")));
+		}
+		List<Long> ids = new ArrayList<>();
+		cuentaRepo.findAll().forEach(c -> ids.add(c.getId()));
+		BigDecimal totalInicial = totalSaldos();
+
+		// When
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		CountDownLatch inicio = new CountDownLatch(1);
+		for (int h = 0; h < HILOS; h++) {
+			executor.execute(() -> {
+				esperar(inicio);
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int t = 0; t < TRANSFERENCIAS_POR_HILO; t++) {
+					Long origen = ids.get(random.nextInt(ids.size()));
+					Long destino = ids.get(random.nextInt(ids.size()));
+					BigDecimal monto = new BigDecimal(random.nextInt(1, 200));
+					transferir(origen, destino, monto);
+				}
+			});
+		}
+		inicio.countDown();
+		executor.shutdown();
+
+		// Then
+		assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Las transferencias no terminaron (¿deadlock?)");
+		assertTrue(inesperados.isEmpty(), () -> "Errores inesperados: " + inesperados);
+		assertTrue(exitosas.get() > 0);
+		assertEquals(HILOS * TRANSFERENCIAS_POR_HILO, exitosas.get() + sinFondos.get() + conflictos.get());
+		assertEquals(0, totalInicial.compareTo(totalSaldos()));
+		cuentaRepo.findAll().forEach(c -> assertTrue(c.getSaldo().signum() >= 0));
+		verificarConflictos(conflictos.get());
+	}
+
+	abstract void verificarConflictos(int conflictos);
+
+	private void transferir(Long origen, Long destino, BigDecimal monto) {
+		try {
+			service.transferir(origen, destino, monto, 1L);
+			exitosas.incrementAndGet();
+		} catch (DineroInsuficienteException e) {
+			sinFondos.incrementAndGet();
+		} catch (ConcurrencyFailureException e) {
+			conflictos.incrementAndGet();
+		} catch (Throwable e) {
+			synchronized (inesperados) {
+				inesperados.add(e);
+			}
+		}
+	}
+
+	private BigDecimal totalSaldos() {
+		return cuentaRepo.findAll().stream().map(Cuenta::getSaldo).reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.gregpalacios.springtest;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("concurrencia")
+@SpringBootTest(properties = { "cuentas.transferir.modo=OPTIMISTA", "cuentas.transferir.reintentos=10" })
+class TransferenciasConcurrentesOptimistaTest extends TransferenciasConcurrentesBase {
+
+	@Override
+	void verificarConflictos(int conflictos) {
+		// Con reintentos acotados algunas transferencias pueden agotar sus
+		// intentos; lo importante es que nunca se pierdan actualizaciones.
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.gregpalacios.springtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Tag("concurrencia")
+@SpringBootTest(properties = { "cuentas.transferir.modo=PESIMISTA",
+		"spring.datasource.url=jdbc:h2:mem:concurrencia_pesimista;LOCK_TIMEOUT=10000" })
+class TransferenciasConcurrentesPesimistaTest extends TransferenciasConcurrentesBase {
+
+	@Override
+	void verificarConflictos(int conflictos) {
+		// Un deadlock se manifestaría como espera de bloqueo agotada.
+		assertEquals(0, conflictos);
+	}
+
+}
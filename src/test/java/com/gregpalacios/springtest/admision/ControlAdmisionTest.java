@@ -0,0 +1,45 @@
+package com.gregpalacios.springtest.admision;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ControlAdmisionTest {
+
+	private ControlAdmision control;
+
+	@BeforeEach
+	void setUp() {
+		control = new ControlAdmision(new SimpleMeterRegistry(), true, 4, 20, 4, 200, 50);
+	}
+
+	@Test
+	void testLoteLentoNoBajaElLimite() {
+		// 100 transferencias en 100 ms: 1 ms cada una, muy por debajo del objetivo.
+		control.ejecutarLote(Arrays.asList(1L, 2L, 3L), 100, () -> dormir(100));
+
+		assertEquals(20, control.getLimite());
+	}
+
+	@Test
+	void testTransferenciaLentaBajaElLimite() {
+		control.ejecutar(1L, 2L, () -> dormir(100));
+
+		assertEquals(18, control.getLimite());
+	}
+
+	private static Object dormir(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+}
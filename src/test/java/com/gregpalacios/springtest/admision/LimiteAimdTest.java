@@ -0,0 +1,72 @@
+package com.gregpalacios.springtest.admision;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LimiteAimdTest {
+
+	private static final long OBJETIVO = 1000;
+
+	private LimiteAimd limite;
+
+	@BeforeEach
+	void setUp() {
+		limite = new LimiteAimd(2, 1, 4, OBJETIVO, 0.5);
+	}
+
+	@Test
+	void testRechazaPorEncimaDelLimite() {
+		assertTrue(limite.adquirir());
+		assertTrue(limite.adquirir());
+
+		assertFalse(limite.adquirir());
+		assertEquals(2, limite.getEnCurso());
+
+		limite.liberar(OBJETIVO, false);
+		assertTrue(limite.adquirir());
+	}
+
+	@Test
+	void testCreceBajoCargaDentroDelObjetivo() {
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limite.adquirir());
+			assertTrue(limite.adquirir());
+			limite.liberar(OBJETIVO, false);
+			limite.liberar(OBJETIVO, false);
+		}
+
+		assertEquals(4, limite.getLimite());
+		assertEquals(0, limite.getEnCurso());
+	}
+
+	@Test
+	void testNoCreceSinCarga() {
+		limite = new LimiteAimd(4, 1, 8, OBJETIVO, 0.5);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limite.adquirir());
+			limite.liberar(1, false);
+		}
+
+		assertEquals(4, limite.getLimite());
+	}
+
+	@Test
+	void testReducePorLatenciaOSobrecarga() {
+		limite = new LimiteAimd(4, 1, 8, OBJETIVO, 0.5);
+
+		assertTrue(limite.adquirir());
+		limite.liberar(OBJETIVO + 1, false);
+		assertEquals(2, limite.getLimite());
+
+		assertTrue(limite.adquirir());
+		limite.liberar(1, true);
+		assertEquals(1, limite.getLimite());
+
+		assertTrue(limite.adquirir());
+		limite.liberar(1, true);
+		assertEquals(1, limite.getLimite());
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.gregpalacios.springtest.admision;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LimitePorClaveTest {
+
+	@Test
+	void testLimitaCadaClavePorSeparado() {
+		LimitePorClave<Long> limite = new LimitePorClave<>(2);
+
+		assertTrue(limite.adquirir(1L));
+		assertTrue(limite.adquirir(1L));
+		assertFalse(limite.adquirir(1L));
+		assertTrue(limite.adquirir(2L));
+
+		assertEquals(2, limite.enCurso(1L));
+		assertEquals(1, limite.enCurso(2L));
+		assertEquals(2, limite.claves());
+	}
+
+	@Test
+	void testLiberarQuitaLaClave() {
+		LimitePorClave<Long> limite = new LimitePorClave<>(1);
+		assertTrue(limite.adquirir(1L));
+
+		limite.liberar(1L);
+
+		assertEquals(0, limite.enCurso(1L));
+		assertEquals(0, limite.claves());
+		assertTrue(limite.adquirir(1L));
+	}
+
+}
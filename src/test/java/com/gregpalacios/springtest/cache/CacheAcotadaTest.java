@@ -0,0 +1,66 @@
+package com.gregpalacios.springtest.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheAcotadaTest {
+
+	private AtomicLong reloj;
+
+	private CacheAcotada<Long, String> cache;
+
+	@BeforeEach
+	void setUp() {
+		reloj = new AtomicLong();
+		cache = new CacheAcotada<>(2, 1000, reloj::get);
+	}
+
+	@Test
+	void testDesalojaLaMenosUsada() {
+		cache.guardar(1L, "uno");
+		cache.guardar(2L, "dos");
+		assertEquals("uno", cache.obtener(1L));
+
+		cache.guardar(3L, "tres");
+
+		assertNull(cache.obtener(2L));
+		assertEquals("uno", cache.obtener(1L));
+		assertEquals("tres", cache.obtener(3L));
+		assertEquals(2, cache.tamanio());
+		assertEquals(1, cache.desalojos());
+	}
+
+	@Test
+	void testVenceSegunTtl() {
+		cache.guardar(1L, "uno");
+		reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertEquals("uno", cache.obtener(1L));
+
+		reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+
+		assertNull(cache.obtener(1L));
+		assertEquals(0, cache.tamanio());
+		assertEquals(1, cache.aciertos());
+		assertEquals(1, cache.fallos());
+		assertEquals(1, cache.desalojos());
+	}
+
+	@Test
+	void testPurgarVencidas() {
+		cache.guardar(1L, "uno");
+		reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+		cache.guardar(2L, "dos");
+		reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+
+		cache.purgarVencidas();
+
+		assertEquals(1, cache.tamanio());
+		assertEquals("dos", cache.obtener(2L));
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.gregpalacios.springtest.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VueloUnicoTest {
+
+	private VueloUnico<Long, StringBuilder> vuelo;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		vuelo = new VueloUnico<>();
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testUnaCargaParaLecturasConcurrentes() throws Exception {
+		CountDownLatch enCarga = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		AtomicInteger cargas = new AtomicInteger();
+		StringBuilder leida = new StringBuilder("uno");
+		Supplier<StringBuilder> carga = () -> {
+			cargas.incrementAndGet();
+			enCarga.countDown();
+			esperar(liberar);
+			return leida;
+		};
+
+		Future<StringBuilder> lider = executor.submit(() -> vuelo.obtener(1L, 0, carga, StringBuilder::new));
+		assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+		List<Future<StringBuilder>> seguidores = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			seguidores.add(executor.submit(() -> vuelo.obtener(1L, 0, carga, StringBuilder::new)));
+		}
+		esperarCoalescidas(3);
+		liberar.countDown();
+
+		assertSame(leida, lider.get(5, TimeUnit.SECONDS));
+		for (Future<StringBuilder> seguidor : seguidores) {
+			StringBuilder copia = seguidor.get(5, TimeUnit.SECONDS);
+			assertNotSame(leida, copia);
+			assertEquals("uno", copia.toString());
+		}
+		assertEquals(1, cargas.get());
+		assertEquals(1, vuelo.cargas());
+		assertEquals(3, vuelo.coalescidas());
+		assertEquals(0.75, vuelo.proporcionCoalescidas());
+		assertEquals(0, vuelo.enCurso());
+	}
+
+	@Test
+	void testNoSeSumaAUnaCargaAnteriorAUnaEscritura() throws Exception {
+		CountDownLatch enCarga = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Future<StringBuilder> antigua = executor.submit(() -> vuelo.obtener(1L, 0, () -> {
+			enCarga.countDown();
+			esperar(liberar);
+			return new StringBuilder("antes");
+		}, StringBuilder::new));
+		assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+
+		StringBuilder nueva = vuelo.obtener(1L, 1, () -> new StringBuilder("después"), StringBuilder::new);
+		liberar.countDown();
+
+		assertEquals("después", nueva.toString());
+		assertEquals("antes", antigua.get(5, TimeUnit.SECONDS).toString());
+		assertEquals(2, vuelo.cargas());
+		assertEquals(0, vuelo.coalescidas());
+		assertEquals(0, vuelo.enCurso());
+	}
+
+	@Test
+	void testPropagaElErrorDeLaCarga() throws Exception {
+		CountDownLatch enCarga = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Supplier<StringBuilder> carga = () -> {
+			enCarga.countDown();
+			esperar(liberar);
+			throw new IllegalStateException("sin conexión");
+		};
+		Future<StringBuilder> lider = executor.submit(() -> vuelo.obtener(1L, 0, carga, StringBuilder::new));
+		assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+		Future<StringBuilder> seguidor = executor.submit(() -> vuelo.obtener(1L, 0, carga, StringBuilder::new));
+		esperarCoalescidas(1);
+		liberar.countDown();
+
+		for (Future<StringBuilder> lectura : Arrays.asList(lider, seguidor)) {
+			Exception e = assertThrows(Exception.class, () -> lectura.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(0, vuelo.enCurso());
+		assertEquals("dos", vuelo.obtener(1L, 0, () -> new StringBuilder("dos"), StringBuilder::new).toString());
+	}
+
+	private void esperarCoalescidas(long cantidad) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (vuelo.coalescidas() < cantidad && System.nanoTime() < limite) {
+			Thread.sleep(1);
+		}
+		assertEquals(cantidad, vuelo.coalescidas());
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,188 @@
+package com.gregpalacios.springtest.carga;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.services.CuentaService;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Prueba de carga de la API REST. Solo corre con el perfil de Maven carga:
+ * 
+ * <pre>
+ * mvn -Pcarga test -Dcarga.tasa=1000 -Dcarga.duracion-s=60 -Dcuentas.transferir.modo=ATOMICA
+ * </pre>
+ * 
+ * Imprime p50/p99/p999 por operación y deja los histogramas en target/carga.
+ */
+@Tag("carga")
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "logging.level.org.hibernate.SQL=OFF")
+class CargaApiTest {
+
+	private static final ParameterizedTypeReference<Map<String, Object>> JSON = new ParameterizedTypeReference<Map<String, Object>>() {
+	};
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private CuentaService service;
+
+	@Value("${carga.tasa:200}")
+	private double tasa;
+
+	@Value("${carga.calentamiento-s:10}")
+	private long calentamiento;
+
+	@Value("${carga.duracion-s:30}")
+	private long duracion;
+
+	@Value("${carga.cuentas:1000}")
+	private int numeroCuentas;
+
+	@Value("${carga.calientes:4}")
+	private int numeroCalientes;
+
+	@Value("${carga.conexiones:256}")
+	private int conexiones;
+
+	@Value("${carga.mezcla.listar:10}")
+	private int pesoListar;
+
+	@Value("${carga.mezcla.detalle:40}")
+	private int pesoDetalle;
+
+	@Value("${carga.mezcla.transferir-caliente:15}")
+	private int pesoTransferirCaliente;
+
+	@Value("${carga.mezcla.transferir-fria:15}")
+	private int pesoTransferirFria;
+
+	@Value("${carga.mezcla.crear:10}")
+	private int pesoCrear;
+
+	@Value("${carga.mezcla.eliminar:10}")
+	private int pesoEliminar;
+
+	@Value("${cuentas.transferir.modo:OPTIMISTA}")
+	private String modo;
+
+	private final Queue<Long> creadas = new ConcurrentLinkedQueue<>();
+
+	@Test
+	void testCargaMixta() throws Exception {
+		List<Long> calientes = crearCuentas(numeroCalientes);
+		List<Long> frias = crearCuentas(numeroCuentas);
+
+		ConnectionProvider conexiones = ConnectionProvider.builder("carga").maxConnections(this.conexiones)
+				.pendingAcquireMaxCount(-1).build();
+		WebClient cliente = WebClient.builder().baseUrl("http://localhost:" + puerto + "/api/cuentas")
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(conexiones))).build();
+
+		GeneradorCarga generador = new GeneradorCarga()
+				.agregar("listar", pesoListar, () -> estado(cliente.get()
+						.uri("?despuesDe={id}&tamanio=50", elegir(frias) - 1).retrieve().toBodilessEntity()))
+				.agregar("detalle", pesoDetalle,
+						() -> estado(cliente.get().uri("/{id}", elegir(frias)).retrieve().toBodilessEntity()))
+				.agregar("transferirCaliente", pesoTransferirCaliente, () -> transferir(cliente, calientes))
+				.agregar("transferirFria", pesoTransferirFria, () -> transferir(cliente, frias))
+				.agregar("crear", pesoCrear, () -> crear(cliente))
+				.agregar("eliminar", pesoEliminar, () -> eliminar(cliente));
+
+		GeneradorCarga.Resultado resultado;
+		try {
+			resultado = generador.ejecutar(tasa, Duration.ofSeconds(calentamiento), Duration.ofSeconds(duracion));
+		} finally {
+			conexiones.dispose();
+		}
+
+		System.out.println("Modo de transferencia " + modo);
+		resultado.imprimir(System.out);
+		resultado.guardar(Paths.get("target", "carga", modo.toLowerCase()));
+
+		assertTrue(resultado.completadas() > 0);
+		assertEquals(0, resultado.sinTerminar());
+	}
+
+	private List<Long> crearCuentas(int cantidad) {
+		List<Cuenta> cuentas = new ArrayList<>(cantidad);
+		for (int i = 0; i < cantidad; i++) {
+			cuentas.add(new Cuenta(null, "Carga " + i, new BigDecimal("1000000")));
+		}
+		List<Long> ids = new ArrayList<>(cantidad);
+		service.saveAll(cuentas).forEach(cuenta -> ids.add(cuenta.getId()));
+		return ids;
+	}
+
+	private Mono<Integer> transferir(WebClient cliente, List<Long> cuentas) {
+		int origen = ThreadLocalRandom.current().nextInt(cuentas.size());
+		int destino = (origen + 1 + ThreadLocalRandom.current().nextInt(cuentas.size() - 1)) % cuentas.size();
+
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(cuentas.get(origen));
+		dto.setCuentaDestinoId(cuentas.get(destino));
+		dto.setBancoId(1L);
+		dto.setMonto(BigDecimal.ONE);
+		return estado(cliente.post().uri("/transferir").bodyValue(dto).retrieve().toBodilessEntity());
+	}
+
+	private Mono<Integer> crear(WebClient cliente) {
+		Cuenta cuenta = new Cuenta(null, "Carga nueva", new BigDecimal("100"));
+		return estado(cliente.post().bodyValue(cuenta).retrieve().toEntity(JSON).doOnNext(
+				respuesta -> creadas.add(((Number) respuesta.getBody().get("id")).longValue())));
+	}
+
+	/**
+	 * Borra cuentas creadas durante la carga; si aún no hay ninguna, la
+	 * petición no se cuenta.
+	 */
+	private Mono<Integer> eliminar(WebClient cliente) {
+		Long id = creadas.poll();
+		if (id == null) {
+			return Mono.empty();
+		}
+		return estado(cliente.delete().uri("/{id}", id).retrieve().toBodilessEntity());
+	}
+
+	private static Long elegir(List<Long> cuentas) {
+		return cuentas.get(ThreadLocalRandom.current().nextInt(cuentas.size()));
+	}
+
+	/**
+	 * Los 4xx/5xx no cortan la carga: se cuentan como errores con su
+	 * latencia.
+	 */
+	private static Mono<Integer> estado(Mono<? extends ResponseEntity<?>> respuesta) {
+		return respuesta.map(ResponseEntity::getStatusCodeValue).onErrorResume(WebClientResponseException.class,
+				e -> Mono.just(e.getRawStatusCode()));
+	}
+}
@@ -0,0 +1,198 @@
+package com.gregpalacios.springtest.carga;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Carga de lazo abierto: las peticiones salen a una tasa fija sin esperar a
+ * que terminen las anteriores, y la latencia se mide desde el instante en que
+ * la petición debía salir. Si el servidor (o el propio generador) se atrasa,
+ * ese atraso cuenta como latencia en lugar de esconderse (coordinated
+ * omission).
+ */
+class GeneradorCarga {
+
+	private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+
+	private final List<Operacion> operaciones = new ArrayList<>();
+
+	private int pesoTotal;
+
+	/**
+	 * La petición devuelve el código HTTP; un Mono vacío significa que la
+	 * operación no aplica en este momento y no se cuenta.
+	 */
+	GeneradorCarga agregar(String nombre, int peso, Supplier<Mono<Integer>> peticion) {
+		if (peso > 0) {
+			pesoTotal += peso;
+			operaciones.add(new Operacion(nombre, pesoTotal, peticion));
+		}
+		return this;
+	}
+
+	Resultado ejecutar(double tasaPorSegundo, Duration calentamiento, Duration medicion) throws InterruptedException {
+		long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / tasaPorSegundo);
+		long inicio = System.nanoTime();
+		long medirDesde = inicio + calentamiento.toNanos();
+		long fin = medirDesde + medicion.toNanos();
+		AtomicLong enVuelo = new AtomicLong();
+
+		for (long i = 0;; i++) {
+			long programada = inicio + i * intervalo;
+			if (programada >= fin) {
+				break;
+			}
+			esperarHasta(programada);
+
+			Operacion operacion = elegir();
+			boolean medir = programada >= medirDesde;
+			enVuelo.incrementAndGet();
+			operacion.peticion.get().onErrorReturn(-1).defaultIfEmpty(0).subscribe(codigo -> {
+				if (medir && codigo != 0) {
+					operacion.registrar(programada, codigo);
+				}
+				enVuelo.decrementAndGet();
+			});
+		}
+
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (enVuelo.get() > 0 && System.nanoTime() < limite) {
+			Thread.sleep(10);
+		}
+		return new Resultado(operaciones, tasaPorSegundo, medicion, enVuelo.get());
+	}
+
+	private Operacion elegir() {
+		int valor = ThreadLocalRandom.current().nextInt(pesoTotal);
+		for (Operacion operacion : operaciones) {
+			if (valor < operacion.pesoAcumulado) {
+				return operacion;
+			}
+		}
+		throw new IllegalStateException("Sin operaciones");
+	}
+
+	private static void esperarHasta(long instante) {
+		long restante;
+		while ((restante = instante - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(restante);
+		}
+	}
+
+	private static final class Operacion {
+
+		private final String nombre;
+
+		private final int pesoAcumulado;
+
+		private final Supplier<Mono<Integer>> peticion;
+
+		private final Histogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+
+		private final AtomicLong errores = new AtomicLong();
+
+		Operacion(String nombre, int pesoAcumulado, Supplier<Mono<Integer>> peticion) {
+			this.nombre = nombre;
+			this.pesoAcumulado = pesoAcumulado;
+			this.peticion = peticion;
+		}
+
+		void registrar(long programada, int codigo) {
+			long latencia = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - programada);
+			latencias.recordValue(Math.min(latencia, LATENCIA_MAXIMA_US));
+			if (codigo < 200 || codigo >= 300) {
+				errores.incrementAndGet();
+			}
+		}
+	}
+
+	static final class Resultado {
+
+		private final Map<String, Histogram> latencias = new LinkedHashMap<>();
+
+		private final Map<String, Long> errores = new LinkedHashMap<>();
+
+		private final Histogram total = new Histogram(LATENCIA_MAXIMA_US, 3);
+
+		private final double tasa;
+
+		private final Duration medicion;
+
+		private final long sinTerminar;
+
+		private Resultado(List<Operacion> operaciones, double tasa, Duration medicion, long sinTerminar) {
+			for (Operacion operacion : operaciones) {
+				latencias.put(operacion.nombre, operacion.latencias);
+				errores.put(operacion.nombre, operacion.errores.get());
+				total.add(operacion.latencias);
+			}
+			this.tasa = tasa;
+			this.medicion = medicion;
+			this.sinTerminar = sinTerminar;
+		}
+
+		long completadas() {
+			return total.getTotalCount();
+		}
+
+		long errores() {
+			return errores.values().stream().mapToLong(Long::longValue).sum();
+		}
+
+		long sinTerminar() {
+			return sinTerminar;
+		}
+
+		void imprimir(PrintStream salida) {
+			salida.printf("Tasa objetivo %.0f/s durante %ds, %d sin terminar%n", tasa, medicion.getSeconds(),
+					sinTerminar);
+			salida.printf("%-20s %9s %9s %8s %9s %9s %9s %9s%n", "operacion", "peticiones", "req/s", "errores",
+					"p50 ms", "p99 ms", "p999 ms", "max ms");
+			latencias.forEach((nombre, histograma) -> linea(salida, nombre, histograma, errores.get(nombre)));
+			linea(salida, "total", total, errores());
+		}
+
+		private void linea(PrintStream salida, String nombre, Histogram histograma, long errores) {
+			salida.printf("%-20s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f%n", nombre, histograma.getTotalCount(),
+					histograma.getTotalCount() / (double) medicion.getSeconds(), errores,
+					histograma.getValueAtPercentile(50) / 1000.0, histograma.getValueAtPercentile(99) / 1000.0,
+					histograma.getValueAtPercentile(99.9) / 1000.0, histograma.getMaxValue() / 1000.0);
+		}
+
+		/**
+		 * Un archivo .hgrm por operación (y total), en milisegundos, listo para
+		 * el HdrHistogram plotter.
+		 */
+		void guardar(Path directorio) throws IOException {
+			Files.createDirectories(directorio);
+			for (Map.Entry<String, Histogram> entrada : latencias.entrySet()) {
+				guardar(directorio.resolve(entrada.getKey() + ".hgrm"), entrada.getValue());
+			}
+			guardar(directorio.resolve("total.hgrm"), total);
+		}
+
+		private static void guardar(Path archivo, Histogram histograma) throws IOException {
+			try (PrintStream salida = new PrintStream(new FileOutputStream(archivo.toFile()), false, "UTF-8")) {
+				histograma.outputPercentileDistribution(salida, 1000.0);
+			}
+		}
+	}
+}
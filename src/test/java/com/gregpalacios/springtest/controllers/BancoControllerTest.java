@@ -0,0 +1,55 @@
+package com.gregpalacios.springtest.controllers;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.gregpalacios.springtest.models.EstadisticasBanco;
+import com.gregpalacios.springtest.models.ResumenBancos;
+import com.gregpalacios.springtest.services.BancoService;
+
+@WebMvcTest(BancoController.class)
+class BancoControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	private BancoService bancoService;
+
+	@Test
+	void testEstadisticas() throws Exception {
+		EstadisticasBanco banco = new EstadisticasBanco(1L, "El banco financiero", 3, new BigDecimal("150.50"));
+		when(bancoService.listar()).thenReturn(Collections.singletonList(banco));
+		when(bancoService.estadisticas(1L)).thenReturn(Optional.of(banco));
+		when(bancoService.estadisticas(9L)).thenReturn(Optional.empty());
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/bancos")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].nombre").value("El banco financiero"))
+				.andExpect(jsonPath("$[0].transferencias").value(3));
+		mvc.perform(MockMvcRequestBuilders.get("/api/bancos/1/estadisticas")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.volumen").value(150.50));
+		mvc.perform(MockMvcRequestBuilders.get("/api/bancos/9/estadisticas")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testResumen() throws Exception {
+		when(bancoService.resumen())
+				.thenReturn(new ResumenBancos(3, new BigDecimal("150.50"), 2, new BigDecimal("3000.00")));
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/bancos/estadisticas")).andExpect(status().isOk())
+				.andExpect(content().json(
+						"{\"transferencias\":3,\"volumen\":150.50,\"cuentas\":2,\"saldoTotal\":3000.00}", true));
+	}
+
+}
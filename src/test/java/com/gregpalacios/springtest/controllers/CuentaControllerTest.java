@@ -1,31 +1,54 @@
 package com.gregpalacios.springtest.controllers;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.gregpalacios.springtest.Datos;
+import com.gregpalacios.springtest.admision.ControlAdmision;
+import com.gregpalacios.springtest.exceptions.ClaveIdempotenciaEnUsoException;
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+import com.gregpalacios.springtest.exceptions.MontoInvalidoException;
+import com.gregpalacios.springtest.exceptions.RecursoNoEncontradoException;
 import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.CuentaDto;
+import com.gregpalacios.springtest.models.EstadoTransferencia;
+import com.gregpalacios.springtest.models.ResultadoTransferencia;
 import com.gregpalacios.springtest.models.TransaccionDto;
+import com.gregpalacios.springtest.models.TransferenciaProcesada;
 import com.gregpalacios.springtest.services.CuentaService;
+import com.gregpalacios.springtest.services.TransferenciaAsincronaService;
 
-@WebMvcTest(CuentaController.class)
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@WebMvcTest(controllers = CuentaController.class, properties = "cuentas.admision.por-cuenta=1")
+@Import({ ControlAdmision.class, SimpleMeterRegistry.class })
 class CuentaControllerTest {
 
 	@Autowired
@@ -34,6 +57,9 @@ class CuentaControllerTest {
 	@MockBean
 	private CuentaService cuentaService;
 
+	@MockBean
+	private TransferenciaAsincronaService transferenciaAsincronaService;
+
 	private ObjectMapper objectMapper;
 
 	@BeforeEach
@@ -44,7 +70,8 @@ class CuentaControllerTest {
 	@Test
 	void testDetalle() throws Exception {
 		// Given
-		when(cuentaService.findById(1L)).thenReturn(Datos.crearCuenta001().orElseThrow(null));
+		when(cuentaService.detalle(1L)).thenReturn(Datos.crearCuenta001().map(CuentaDto::de));
+		when(cuentaService.revisarSaldo(1L)).thenReturn(new BigDecimal("1000.00"));
 
 		// When
 		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/1").contentType(MediaType.APPLICATION_JSON))
@@ -52,7 +79,126 @@ class CuentaControllerTest {
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("$.persona").value("Andrés")).andExpect(jsonPath("$.saldo").value("1000"));
 
-		verify(cuentaService).findById(1L);
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/1/saldo")).andExpect(status().isOk())
+				.andExpect(content().string("1000.00"));
+
+		verify(cuentaService).detalle(1L);
+		verify(cuentaService, never()).findById(anyLong());
+	}
+
+	@Test
+	void testDetalleInexistente() throws Exception {
+		// Given
+		when(cuentaService.detalle(9L)).thenReturn(Optional.empty());
+		when(cuentaService.revisarSaldo(9L)).thenThrow(new RecursoNoEncontradoException("Cuenta inexistente."));
+		doThrow(new DineroInsuficienteException("Dinero insuficiente en la cuenta.")).when(cuentaService)
+				.transferir(1L, 2L, new BigDecimal("5000"), 1L);
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("5000"));
+		dto.setBancoId(1L);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/9"))
+				// Then
+				.andExpect(status().isNotFound());
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/9/saldo")).andExpect(status().isNotFound());
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(dto)))
+				.andExpect(status().isUnprocessableEntity())
+				.andExpect(jsonPath("$.mensaje").value("Dinero insuficiente en la cuenta."));
+	}
+
+	@Test
+	void testTransferirMontoInvalido() throws Exception {
+		// Given
+		doThrow(new MontoInvalidoException("Monto inválido.")).when(cuentaService).transferir(1L, 2L,
+				new BigDecimal("10.555"), 1L);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"monto\":10.555,\"bancoId\":1}"))
+				// Then
+				.andExpect(status().isUnprocessableEntity()).andExpect(jsonPath("$.mensaje").value("Monto inválido."));
+	}
+
+	@Test
+	void testTransferirRechazadaPorAdmision() throws Exception {
+		// Given
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100"));
+		dto.setBancoId(1L);
+		String json = objectMapper.writeValueAsString(dto);
+		int[] estadoConcurrente = new int[1];
+		doAnswer(invocacion -> {
+			// Otra transferencia sobre la cuenta 1 mientras ésta sigue en curso.
+			estadoConcurrente[0] = mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+					.andExpect(header().string("Retry-After", "1"))
+					.andExpect(jsonPath("$.mensaje").exists()).andReturn().getResponse().getStatus();
+			return null;
+		}).when(cuentaService).transferir(1L, 2L, new BigDecimal("100"), 1L);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+				.content(json))
+				// Then
+				.andExpect(status().isOk());
+		assertEquals(429, estadoConcurrente[0]);
+		verify(cuentaService).transferir(1L, 2L, new BigDecimal("100"), 1L);
+	}
+
+	@Test
+	void testTransferirLoteRechazadoPorAdmision() throws Exception {
+		// Given
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100"));
+		dto.setBancoId(1L);
+		TransaccionDto otra = new TransaccionDto();
+		otra.setCuentaOrigenId(3L);
+		otra.setCuentaDestinoId(2L);
+		otra.setMonto(new BigDecimal("10"));
+		otra.setBancoId(1L);
+		String lote = objectMapper.writeValueAsString(Arrays.asList(otra, otra));
+		int[] estadoConcurrente = new int[1];
+		doAnswer(invocacion -> {
+			// Un lote que toca la cuenta 2 mientras esta transferencia sigue en curso.
+			estadoConcurrente[0] = mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir/lote")
+					.contentType(MediaType.APPLICATION_JSON).content(lote))
+					.andExpect(header().string("Retry-After", "1")).andReturn().getResponse().getStatus();
+			return null;
+		}).when(cuentaService).transferir(1L, 2L, new BigDecimal("100"), 1L);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(dto)))
+				// Then
+				.andExpect(status().isOk());
+		assertEquals(429, estadoConcurrente[0]);
+		verify(cuentaService, never()).transferirLote(anyList());
+	}
+
+	@Test
+	void testBuscarPorPersona() throws Exception {
+		// Given
+		List<Cuenta> cuentas = Arrays.asList(Datos.crearCuenta001().orElseThrow(null));
+		when(cuentaService.findByPersona("andres", 1, 50)).thenReturn(cuentas);
+		when(cuentaService.buscarPorPrefijo("and", 5)).thenReturn(cuentas);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/persona/andres").param("pagina", "1"))
+				// Then
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].persona").value("Andrés"));
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/buscar").param("prefijo", "and").param("tamanio", "5"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].id").value(1));
+
+		verify(cuentaService).findByPersona("andres", 1, 50);
+		verify(cuentaService).buscarPorPrefijo("and", 5);
 	}
 
 	@Test
@@ -81,12 +227,109 @@ class CuentaControllerTest {
 				.andExpect(content().json(objectMapper.writeValueAsString(response)));
 	}
 
+	@Test
+	void testFormatosBinarios() throws Exception {
+		// Given
+		MediaType smile = new MediaType("application", "x-jackson-smile");
+		ObjectMapper cbor = new CBORMapper();
+		ObjectMapper smileMapper = new SmileMapper();
+		when(cuentaService.detalle(1L)).thenReturn(Datos.crearCuenta001().map(CuentaDto::de));
+
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100.25"));
+		dto.setBancoId(1L);
+
+		// When
+		byte[] cuenta = mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/1").accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_CBOR)).andReturn()
+				.getResponse().getContentAsByteArray();
+		byte[] respuesta = mvc
+				.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(smile).accept(smile)
+						.content(smileMapper.writeValueAsBytes(dto)))
+				.andExpect(status().isOk()).andExpect(content().contentType(smile)).andReturn().getResponse()
+				.getContentAsByteArray();
+
+		// Then
+		Map<?, ?> leida = cbor.readValue(cuenta, Map.class);
+		assertEquals("Andrés", leida.get("persona"));
+		assertEquals(new BigDecimal("1000"), cbor.readValue(cuenta, Cuenta.class).getSaldo());
+		assertEquals("OK", smileMapper.readValue(respuesta, Map.class).get("status"));
+		verify(cuentaService).transferir(1L, 2L, new BigDecimal("100.25"), 1L);
+	}
+
+	@Test
+	void testTransferirIdempotente() throws Exception {
+		// Given
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100"));
+		dto.setBancoId(1L);
+		TransferenciaProcesada procesada = new TransferenciaProcesada("clave-1", dto,
+				LocalDateTime.of(2022, 7, 1, 10, 30));
+		when(cuentaService.transferir(eq("clave-1"), any(TransaccionDto.class))).thenReturn(procesada);
+		when(cuentaService.transferir(eq("clave-2"), any(TransaccionDto.class)))
+				.thenThrow(new ClaveIdempotenciaEnUsoException("La clave de idempotencia ya se usó con otra transferencia."));
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").header("Idempotency-Key", "clave-1")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(dto)))
+				// Then
+				.andExpect(status().isOk()).andExpect(jsonPath("$.date").value("2022-07-01"))
+				.andExpect(jsonPath("$.status").value("OK"))
+				.andExpect(jsonPath("$.transaccion.cuentaDestinoId").value(2));
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").header("Idempotency-Key", "clave-2")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(dto)))
+				.andExpect(status().isUnprocessableEntity());
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").header("Idempotency-Key", "")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(dto)))
+				.andExpect(status().isBadRequest());
+
+		verify(cuentaService, never()).transferir(anyLong(), anyLong(), any(BigDecimal.class), anyLong());
+	}
+
+	@Test
+	void testTransferirAsincrono() throws Exception {
+		// Given
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100"));
+		dto.setBancoId(1L);
+		when(transferenciaAsincronaService.isHabilitado()).thenReturn(true);
+		when(transferenciaAsincronaService.enviar(any(TransaccionDto.class)))
+				.thenReturn(EstadoTransferencia.pendiente("t-1", dto));
+		when(transferenciaAsincronaService.estado("t-1"))
+				.thenReturn(new EstadoTransferencia("t-1", "OK", "Transferencia realizada con éxito", dto));
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(dto)))
+				// Then
+				.andExpect(status().isAccepted())
+				.andExpect(header().string("Location", "/api/cuentas/transferencias/t-1"))
+				.andExpect(jsonPath("$.id").value("t-1")).andExpect(jsonPath("$.status").value("PENDIENTE"));
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/transferencias/t-1"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.status").value("OK"))
+				.andExpect(jsonPath("$.transaccion.monto").value(100));
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/transferencias/t-2"))
+				.andExpect(status().isNotFound());
+
+		verify(cuentaService, never()).transferir(anyLong(), anyLong(), any(BigDecimal.class), anyLong());
+	}
+
 	@Test
 	void testListar() throws Exception {
 		// Given
 		List<Cuenta> cuentas = Arrays.asList(Datos.crearCuenta001().orElseThrow(null),
 				Datos.crearCuenta002().orElseThrow(null));
-		when(cuentaService.findAll()).thenReturn(cuentas);
+		when(cuentaService.findPagina(null, 50))
+				.thenReturn(cuentas.stream().map(CuentaDto::de).collect(Collectors.toList()));
 
 		// When
 		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas").contentType(MediaType.APPLICATION_JSON))
@@ -94,7 +337,10 @@ class CuentaControllerTest {
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("$[0].persona").value("Andrés")).andExpect(jsonPath("$[1].persona").value("Jhon"))
 				.andExpect(jsonPath("$[0].saldo").value("1000")).andExpect(jsonPath("$[1].saldo").value("2000"))
-				.andExpect(content().json(objectMapper.writeValueAsString(cuentas)));
+				.andExpect(content().json(objectMapper.writeValueAsString(cuentas)))
+				.andExpect(header().doesNotExist("X-Siguiente-Cursor"));
+
+		verify(cuentaService).findPagina(null, 50);
 	}
 
 	@Test
@@ -113,4 +359,125 @@ class CuentaControllerTest {
 		verify(cuentaService).save(any());
 	}
 
+	@Test
+	void testGuardarVersionDesactualizada() throws Exception {
+		// Given: una actualización sin la versión leída.
+		when(cuentaService.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Cuenta.class, 1L));
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"id\":1,\"persona\":\"Andrés\",\"saldo\":1000}"))
+				// Then
+				.andExpect(status().isConflict()).andExpect(jsonPath("$.mensaje").exists());
+	}
+
+	@Test
+	void testGuardarLote() throws Exception {
+		// Given
+		List<Cuenta> nuevas = Arrays.asList(new Cuenta(null, "Pepe", new BigDecimal("3000")),
+				new Cuenta(null, "Pepa", new BigDecimal("3800")));
+		when(cuentaService.saveAll(anyList())).then(invocation -> {
+			List<Cuenta> cuentas = invocation.getArgument(0);
+			for (int i = 0; i < cuentas.size(); i++) {
+				cuentas.get(i).setId(3L + i);
+			}
+			return cuentas;
+		});
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/lote").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(nuevas)))
+				// Then
+				.andExpect(status().isCreated()).andExpect(jsonPath("$[0].id").value(3))
+				.andExpect(jsonPath("$[1].id").value(4)).andExpect(jsonPath("$[1].persona").value("Pepa"));
+
+		String ndjson = "{\"persona\":\"Ana\",\"saldo\":10}\n{\"persona\":\"Luis\",\"saldo\":20}\n";
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/lote").contentType(MediaType.APPLICATION_NDJSON)
+				.content(ndjson)).andExpect(status().isCreated()).andExpect(jsonPath("$[1].persona").value("Luis"));
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/lote").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"id\":1,\"persona\":\"Andrés\",\"saldo\":1000}]")).andExpect(status().isBadRequest());
+
+		verify(cuentaService, times(2)).saveAll(anyList());
+	}
+
+	@Test
+	void testTransferirLote() throws Exception {
+		// Given
+		TransaccionDto dto1 = new TransaccionDto();
+		dto1.setCuentaOrigenId(1L);
+		dto1.setCuentaDestinoId(2L);
+		dto1.setMonto(new BigDecimal("100"));
+		dto1.setBancoId(1L);
+
+		TransaccionDto dto2 = new TransaccionDto();
+		dto2.setCuentaOrigenId(1L);
+		dto2.setCuentaDestinoId(2L);
+		dto2.setMonto(new BigDecimal("5000"));
+		dto2.setBancoId(1L);
+
+		List<TransaccionDto> lote = Arrays.asList(dto1, dto2);
+		when(cuentaService.transferirLote(any())).thenReturn(Arrays.asList(ResultadoTransferencia.ok(0, dto1),
+				ResultadoTransferencia.error(1, dto2, "Dinero insuficiente en la cuenta.")));
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir/lote").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(lote)))
+				// Then
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].status").value("OK")).andExpect(jsonPath("$[1].status").value("ERROR"))
+				.andExpect(jsonPath("$[1].indice").value(1))
+				.andExpect(jsonPath("$[1].mensaje").value("Dinero insuficiente en la cuenta."));
+
+		// When
+		String ndjson = objectMapper.writeValueAsString(dto1) + "\n" + objectMapper.writeValueAsString(dto2) + "\n";
+		mvc.perform(MockMvcRequestBuilders.post("/api/cuentas/transferir/lote")
+				.contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+				// Then
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].transaccion.monto").value(100));
+
+		verify(cuentaService, times(2)).transferirLote(argThat(l -> l.size() == 2));
+	}
+
+	@Test
+	void testListarPaginado() throws Exception {
+		// Given
+		List<CuentaDto> pagina = Arrays.asList(CuentaDto.de(Datos.crearCuenta002().orElseThrow(null)));
+		when(cuentaService.findPagina(1L, 1)).thenReturn(pagina);
+		when(cuentaService.findPagina(2L, 1)).thenReturn(Arrays.asList());
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas").param("despuesDe", "1").param("tamanio", "1"))
+				// Then
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].persona").value("Jhon"))
+				.andExpect(header().string("X-Siguiente-Cursor", "2"));
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas").param("despuesDe", "2").param("tamanio", "1"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$").isEmpty())
+				.andExpect(header().doesNotExist("X-Siguiente-Cursor"));
+
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testExportar() throws Exception {
+		// Given
+		doAnswer(invocation -> {
+			Consumer<CuentaDto> consumidor = invocation.getArgument(0);
+			consumidor.accept(CuentaDto.de(Datos.crearCuenta001().orElseThrow(null)));
+			consumidor.accept(CuentaDto.de(Datos.crearCuenta002().orElseThrow(null)));
+			return null;
+		}).when(cuentaService).exportar(any(Consumer.class));
+
+		// When
+		MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/exportar"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// Then
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado)).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].persona").value("Andrés")).andExpect(jsonPath("$[1].persona").value("Jhon"))
+				.andExpect(jsonPath("$[1].saldo").value(2000));
+	}
+
 }
@@ -156,6 +156,7 @@ class CuentaControllerWebTestClientTests {
 				.contentType(MediaType.APPLICATION_JSON).expectBodyList(Cuenta.class).hasSize(3);
 
 		client.get().uri("/api/cuentas/3").exchange().expectStatus().isNotFound().expectBody().isEmpty();
+		client.delete().uri("/api/cuentas/3").exchange().expectStatus().isNotFound();
 	}
 
 }
@@ -0,0 +1,109 @@
+package com.gregpalacios.springtest.controllers;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.gregpalacios.springtest.models.Cuenta;
+import com.gregpalacios.springtest.models.TransaccionDto;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"spring.main.web-application-type=reactive", "springfox.documentation.enabled=false",
+		"cuentas.reactivo.tamanio-pagina=2" })
+class CuentaReactivaTests {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	@Order(1)
+	void testTransferir() {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setBancoId(1L);
+		dto.setMonto(new BigDecimal("100"));
+
+		client.post().uri("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON).bodyValue(dto).exchange()
+				.expectStatus().isOk().expectBody().jsonPath("$.status").value(is("OK"))
+				.jsonPath("$.mensaje").isEqualTo("Transferencia realizada con éxito")
+				.jsonPath("$.transaccion.cuentaOrigenId").isEqualTo(1);
+	}
+
+	@Test
+	@Order(2)
+	void testTransferirConError() {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setBancoId(1L);
+		dto.setMonto(new BigDecimal("100000"));
+
+		client.post().uri("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON).bodyValue(dto).exchange()
+				.expectStatus().isEqualTo(422).expectBody().jsonPath("$.mensaje")
+				.isEqualTo("Dinero insuficiente en la cuenta.");
+
+		dto.setMonto(new BigDecimal("10"));
+		dto.setCuentaDestinoId(99L);
+		client.post().uri("/api/cuentas/transferir").contentType(MediaType.APPLICATION_JSON).bodyValue(dto).exchange()
+				.expectStatus().isNotFound();
+
+		client.get().uri("/api/cuentas/abc").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	@Order(3)
+	void testDetalle() {
+		client.get().uri("/api/cuentas/1").exchange().expectStatus().isOk().expectBody(Cuenta.class)
+				.consumeWith(response -> {
+					Cuenta cuenta = response.getResponseBody();
+					assertEquals("Andrés", cuenta.getPersona());
+					assertEquals("900.00", cuenta.getSaldo().toPlainString());
+				});
+		client.get().uri("/api/cuentas/99").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	@Order(4)
+	void testGuardarYListar() {
+		Cuenta cuenta = new Cuenta(null, "Pepa", new BigDecimal("3000"));
+		client.post().uri("/api/cuentas").contentType(MediaType.APPLICATION_JSON).bodyValue(cuenta).exchange()
+				.expectStatus().isCreated().expectBody().jsonPath("$.id").isEqualTo(3);
+
+		// Tres cuentas con páginas de dos: la exportación debe cruzar la página.
+		List<Cuenta> cuentas = client.get().uri("/api/cuentas/exportar").accept(MediaType.APPLICATION_NDJSON)
+				.exchange().expectStatus().isOk().expectHeader()
+				.contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON).returnResult(Cuenta.class)
+				.getResponseBody().collectList().block();
+		assertEquals(3, cuentas.size());
+		assertEquals("Pepa", cuentas.get(2).getPersona());
+
+		client.get().uri("/api/cuentas").exchange().expectStatus().isOk().expectHeader()
+				.doesNotExist("X-Siguiente-Cursor").expectBody().jsonPath("$").value(hasSize(3));
+		client.get().uri("/api/cuentas?tamanio=2").exchange().expectStatus().isOk().expectHeader()
+				.valueEquals("X-Siguiente-Cursor", "2").expectBody().jsonPath("$").value(hasSize(2));
+		client.get().uri("/api/cuentas?despuesDe=2&tamanio=2").exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$").value(hasSize(1)).jsonPath("$[0].persona").isEqualTo("Pepa");
+	}
+
+	@Test
+	@Order(5)
+	void testEliminar() {
+		client.delete().uri("/api/cuentas/3").exchange().expectStatus().isNoContent();
+		client.get().uri("/api/cuentas/3").exchange().expectStatus().isNotFound();
+		client.delete().uri("/api/cuentas/3").exchange().expectStatus().isNotFound();
+	}
+}
@@ -0,0 +1,62 @@
+package com.gregpalacios.springtest.controllers;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.gregpalacios.springtest.models.Movimiento;
+import com.gregpalacios.springtest.services.MovimientoService;
+
+@WebMvcTest(MovimientoController.class)
+class MovimientoControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	private MovimientoService movimientoService;
+
+	@Test
+	void testHistorial() throws Exception {
+		// Given
+		LocalDateTime fecha = LocalDateTime.of(2022, 7, 1, 10, 30);
+		Movimiento credito = new Movimiento(1L, Movimiento.Tipo.CREDITO, new BigDecimal("30.00"), 2L, 1L, fecha);
+		Movimiento debito = new Movimiento(1L, Movimiento.Tipo.DEBITO, new BigDecimal("-100.00"), 2L, 1L, fecha);
+		ReflectionTestUtils.setField(credito, "id", 8L);
+		ReflectionTestUtils.setField(debito, "id", 5L);
+		List<Movimiento> pagina = Arrays.asList(credito, debito);
+		when(movimientoService.historial(1L, null, 2)).thenReturn(pagina);
+
+		// When
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/1/movimientos").param("tamanio", "2"))
+				// Then
+				.andExpect(status().isOk()).andExpect(header().string("X-Siguiente-Cursor", "5"))
+				.andExpect(jsonPath("$[0].tipo").value("CREDITO")).andExpect(jsonPath("$[1].importe").value(-100.00))
+				.andExpect(jsonPath("$[1].contraparteId").value(2))
+				.andExpect(jsonPath("$[0].fecha").value("2022-07-01T10:30:00"));
+
+		verify(movimientoService).historial(1L, null, 2);
+	}
+
+	@Test
+	void testSaldoSegunLibro() throws Exception {
+		when(movimientoService.saldoSegunLibro(1L)).thenReturn(new BigDecimal("930.00"));
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/1/saldo-libro")).andExpect(status().isOk())
+				.andExpect(content().string("930.00"));
+		mvc.perform(MockMvcRequestBuilders.get("/api/cuentas/9/saldo-libro")).andExpect(status().isNotFound());
+	}
+
+}
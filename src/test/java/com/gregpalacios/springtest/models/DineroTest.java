@@ -0,0 +1,74 @@
+package com.gregpalacios.springtest.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.gregpalacios.springtest.exceptions.DineroInsuficienteException;
+
+class DineroTest {
+
+	@Test
+	void testConversionExacta() {
+		Dinero dinero = Dinero.de(new BigDecimal("10.50"));
+
+		assertEquals(1050, dinero.getCentavos());
+		assertEquals(2, dinero.getEscala());
+		assertEquals("10.50", dinero.aBigDecimal().toPlainString());
+		assertEquals("100", Dinero.de(new BigDecimal("100")).aBigDecimal().toPlainString());
+		assertEquals("10.5", Dinero.de(new BigDecimal("10.5")).aBigDecimal().toPlainString());
+		assertEquals("-3.25", Dinero.de(new BigDecimal("-3.25")).aBigDecimal().toPlainString());
+	}
+
+	@Test
+	void testEscalaFueraDeRango() {
+		assertEquals("10.50", Dinero.de(new BigDecimal("10.500")).aBigDecimal().toPlainString());
+		assertEquals("1000", Dinero.de(new BigDecimal("1E+3")).aBigDecimal().toPlainString());
+		assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("10.505")));
+	}
+
+	@Test
+	void testDesbordamiento() {
+		assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("100000000000000000")));
+		assertThrows(ArithmeticException.class, () -> Dinero.sumar(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Dinero.restar(Long.MIN_VALUE, 1));
+	}
+
+	@Test
+	void testCuentaConservaEscala() {
+		Cuenta cuenta = new Cuenta(1L, "Andrés", new BigDecimal("1000"));
+		cuenta.debito(new BigDecimal("100"));
+		assertEquals("900", cuenta.getSaldo().toPlainString());
+
+		cuenta.credito(new BigDecimal("0.5"));
+		assertEquals("900.5", cuenta.getSaldo().toPlainString());
+
+		cuenta.debito(Dinero.de(new BigDecimal("0.25")));
+		assertEquals("900.25", cuenta.getSaldo().toPlainString());
+
+		assertEquals(new Cuenta(1L, "Andrés", new BigDecimal("900.25")), cuenta);
+		assertNotEquals(new Cuenta(1L, "Andrés", new BigDecimal("900.250")), new Cuenta(1L, "Andrés", new BigDecimal("900.2")));
+	}
+
+	@Test
+	void testCuentaRechazaOperacionesInvalidas() {
+		Cuenta cuenta = new Cuenta(1L, "Andrés", new BigDecimal("10.00"));
+
+		assertThrows(DineroInsuficienteException.class, () -> cuenta.debito(new BigDecimal("10.01")));
+		assertThrows(ArithmeticException.class, () -> cuenta.debito(new BigDecimal("0.001")));
+		assertEquals("10.00", cuenta.getSaldo().toPlainString());
+
+		Cuenta llena = new Cuenta(2L, "Jhon", Dinero.aBigDecimal(Long.MAX_VALUE, 2));
+		assertThrows(ArithmeticException.class, () -> llena.credito(new BigDecimal("0.01")));
+	}
+
+	@Test
+	void testCuentaSinSaldo() {
+		Cuenta cuenta = new Cuenta();
+		assertNull(cuenta.getSaldo());
+		assertThrows(NullPointerException.class, () -> cuenta.credito(BigDecimal.ONE));
+	}
+
+}
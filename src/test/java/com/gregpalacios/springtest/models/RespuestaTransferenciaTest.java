@@ -0,0 +1,48 @@
+package com.gregpalacios.springtest.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+class RespuestaTransferenciaTest {
+
+	@Test
+	void testMismoJsonQueElMapa() throws Exception {
+		TransaccionDto dto = new TransaccionDto();
+		dto.setCuentaOrigenId(1L);
+		dto.setCuentaDestinoId(2L);
+		dto.setMonto(new BigDecimal("100.25"));
+		dto.setBancoId(1L);
+
+		Map<String, Object> mapa = new HashMap<>();
+		mapa.put("date", LocalDate.now().toString());
+		mapa.put("status", "OK");
+		mapa.put("mensaje", "Transferencia realizada con éxito");
+		mapa.put("transaccion", dto);
+
+		for (ObjectMapper mapper : new ObjectMapper[] { new ObjectMapper(),
+				new ObjectMapper().registerModule(new BlackbirdModule()), new SmileMapper() }) {
+			assertArrayEquals(mapper.writeValueAsBytes(mapa),
+					mapper.writeValueAsBytes(RespuestaTransferencia.ok(dto)));
+		}
+	}
+
+	@Test
+	void testFechaDeUnaRepeticion() throws Exception {
+		String json = new ObjectMapper()
+				.writeValueAsString(RespuestaTransferencia.ok(LocalDate.of(2022, 7, 1), new TransaccionDto()));
+
+		assertTrue(json.startsWith("{\"date\":\"2022-07-01\",\"transaccion\":{"));
+		assertTrue(json.endsWith(",\"mensaje\":\"Transferencia realizada con éxito\",\"status\":\"OK\"}"));
+	}
+
+}